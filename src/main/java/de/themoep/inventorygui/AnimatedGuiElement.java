@@ -0,0 +1,200 @@
+package de.themoep.inventorygui;
+
+/*
+ * Copyright 2017 Max Lee (https://github.com/Phoenix616)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Represents an element that cycles through multiple frames. All animated elements of a plugin are advanced by the
+ * same clock and only their own slots get drawn when their frame changes, guis without viewers are skipped.
+ */
+public class AnimatedGuiElement extends GuiElement {
+    private final List<GuiElement> frames;
+    private final IntFunction<GuiElement> frameFunction;
+    private int period;
+    private int cachedFrameNumber = -1;
+    private GuiElement cachedFrame = null;
+
+    /**
+     * An element that cycles through a list of frames
+     * @param slotChar  The character to replace in the gui setup string
+     * @param period    The amount of ticks that each frame is shown for
+     * @param frames    The elements to show as the frames
+     */
+    public AnimatedGuiElement(char slotChar, int period, GuiElement... frames) {
+        this(slotChar, period, Arrays.asList(frames));
+    }
+
+    /**
+     * An element that cycles through a list of frames
+     * @param slotChar  The character to replace in the gui setup string
+     * @param period    The amount of ticks that each frame is shown for
+     * @param frames    The elements to show as the frames
+     */
+    public AnimatedGuiElement(char slotChar, int period, List<GuiElement> frames) {
+        this(slotChar, period, Collections.unmodifiableList(new ArrayList<>(frames)), null);
+        if (frames.isEmpty()) {
+            throw new IllegalArgumentException("An animated element needs at least one frame!");
+        }
+    }
+
+    /**
+     * An element that gets its frames from a function
+     * @param slotChar      The character to replace in the gui setup string
+     * @param period        The amount of ticks that each frame is shown for
+     * @param frameFunction The function that returns the element for the frame with the given number.
+     *                      The frame number starts at 0 and increases each period.
+     */
+    public AnimatedGuiElement(char slotChar, int period, IntFunction<GuiElement> frameFunction) {
+        this(slotChar, period, null, frameFunction);
+    }
+
+    private AnimatedGuiElement(char slotChar, int period, List<GuiElement> frames, IntFunction<GuiElement> frameFunction) {
+        super(slotChar, null);
+        setPeriod(period);
+        this.frames = frames;
+        this.frameFunction = frameFunction;
+        setAction(click -> {
+            GuiElement frame = getCurrentFrame();
+            if (frame != null && frame.getAction(click.getWhoClicked()) != null) {
+                return frame.getAction(click.getWhoClicked()).onClick(click);
+            }
+            return true;
+        });
+    }
+
+    @Override
+    public ItemStack getItem(HumanEntity who, int slot) {
+        GuiElement frame = getCurrentFrame();
+        return frame != null ? frame.getItem(who, slot) : null;
+    }
+
+    @Override
+    public boolean isSlotInvariant() {
+        GuiElement frame = getCurrentFrame();
+        return frame == null || frame.isSlotInvariant();
+    }
+
+    @Override
+    public GuiElement getEffectiveElement(HumanEntity who, int slot) {
+        GuiElement frame = getCurrentFrame();
+        return frame != null ? frame.getEffectiveElement(who, slot) : null;
+    }
+
+    @Override
+    public void setGui(InventoryGui gui) {
+        if (this.gui != null && this.gui != gui) {
+            GuiAnimationClock.of(this.gui.getPlugin()).unregister(this);
+        }
+        super.setGui(gui);
+        if (frames != null) {
+            for (GuiElement frame : frames) {
+                frame.setGui(gui);
+            }
+        }
+        if (gui != null) {
+            GuiAnimationClock.of(gui.getPlugin()).register(this);
+        }
+    }
+
+    @Override
+    public void setSlots(int[] slots) {
+        super.setSlots(slots);
+        if (frames != null) {
+            for (GuiElement frame : frames) {
+                frame.setSlots(slots);
+            }
+        }
+    }
+
+    /**
+     * Get the number of the frame that is currently shown
+     * @return The frame number, starts at 0 and increases each period
+     */
+    public int getFrameNumber() {
+        if (gui == null) {
+            return 0;
+        }
+        long frameNumber = GuiAnimationClock.getTick(gui.getPlugin()) / period;
+        if (frames != null) {
+            return (int) (frameNumber % frames.size());
+        }
+        return (int) (frameNumber % Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get the element of the frame that is currently shown
+     * @return The element of the current frame
+     */
+    public GuiElement getCurrentFrame() {
+        int frameNumber = getFrameNumber();
+        if (frames != null) {
+            return frames.get(frameNumber);
+        }
+        synchronized (this) {
+            if (cachedFrameNumber != frameNumber) {
+                cachedFrame = frameFunction.apply(frameNumber);
+                if (cachedFrame != null) {
+                    cachedFrame.setGui(gui);
+                    cachedFrame.setSlots(slots);
+                }
+                cachedFrameNumber = frameNumber;
+            }
+            return cachedFrame;
+        }
+    }
+
+    /**
+     * Get the frames of this element
+     * @return An immutable list of the frames or <code>null</code> if the frames are provided by a function
+     */
+    public List<GuiElement> getFrames() {
+        return frames;
+    }
+
+    /**
+     * Get the amount of ticks that each frame is shown for
+     * @return The period in ticks
+     */
+    public int getPeriod() {
+        return period;
+    }
+
+    /**
+     * Set the amount of ticks that each frame is shown for
+     * @param period    The period in ticks
+     */
+    public void setPeriod(int period) {
+        if (period < 1) {
+            throw new IllegalArgumentException("The period of an animated element needs to be at least one tick!");
+        }
+        this.period = period;
+    }
+}
@@ -38,8 +38,10 @@ import java.util.function.Supplier;
  */
 public class DynamicGuiElement extends GuiElement {
     private Function<HumanEntity, GuiElement> query;
+    private volatile boolean global;
 
     private Map<UUID, CacheEntry> cachedElements = new ConcurrentHashMap<>();
+    private volatile CacheEntry globalEntry = null;
 
     /**
      * Represents an element in a gui that will query all it's data when drawn.
@@ -47,7 +49,21 @@ public class DynamicGuiElement extends GuiElement {
      * @param query     Query the element data, this should return an element with the information
      */
     public DynamicGuiElement(char slotChar, Supplier<GuiElement> query) {
-        this(slotChar, (h) -> query.get());
+        this(slotChar, query, false);
+    }
+
+    /**
+     * Represents an element in a gui that will query all it's data when drawn.
+     * @param slotChar  The character to replace in the gui setup string
+     * @param query     Query the element data, this should return an element with the information
+     * @param global    Whether the queried element should be shared by all viewers. It then only gets queried
+     *                  again when the gui is drawn for all viewers or {@link #update()} is called.
+     *                  The queried element must not have any player specific state then!
+     */
+    public DynamicGuiElement(char slotChar, Supplier<GuiElement> query, boolean global) {
+        super(slotChar);
+        this.query = (h) -> query.get();
+        this.global = global;
     }
 
     /**
@@ -58,12 +74,17 @@ public class DynamicGuiElement extends GuiElement {
     public DynamicGuiElement(char slotChar, Function<HumanEntity, GuiElement> query) {
         super(slotChar);
         this.query = query;
+        this.global = false;
     }
 
     /**
      * Query this element's state for every player who had it cached
      */
     public void update() {
+        if (global) {
+            updateGlobal();
+            return;
+        }
         for (UUID playerId : new ArrayList<>(cachedElements.keySet())) {
             Player p = gui.getPlugin().getServer().getPlayer(playerId);
             if (p != null && p.isOnline()) {
@@ -75,18 +96,76 @@ public class DynamicGuiElement extends GuiElement {
     }
 
     /**
-     * Query this element's state for a certain player
+     * Query this element's state for a certain player.
+     * The shared element of a global element is only queried if it wasn't yet, only the elements inside of it
+     * get updated for the player then. Use {@link #update()} to query it again.
      * @param player The player for whom to update the element
      */
     public CacheEntry update(HumanEntity player) {
+        if (global) {
+            CacheEntry cacheEntry = globalEntry;
+            if (cacheEntry == null) {
+                cacheEntry = updateGlobal();
+            }
+            updateChildren(player, cacheEntry);
+            return cacheEntry;
+        }
         CacheEntry cacheEntry = new CacheEntry(queryElement(player));
+        updateChildren(player, cacheEntry);
+        CacheEntry previous = cachedElements.put(player.getUniqueId(), cacheEntry);
+        if (gui != null) {
+            gui.invalidateRenderedPages(player);
+            if (affectsPageAmount(cacheEntry.element) || previous != null && affectsPageAmount(previous.element)) {
+                gui.invalidatePageAmount(player);
+            }
+        }
+        return cacheEntry;
+    }
+
+    /**
+     * Query the shared element of a player-independent element once for all viewers.
+     * Does nothing for player-dependent elements.
+     * @return The new cache entry or <code>null</code> if the element isn't global
+     */
+    public CacheEntry updateGlobal() {
+        if (!global) {
+            return null;
+        }
+        CacheEntry cacheEntry = new CacheEntry(queryElement(null));
+        CacheEntry previous = globalEntry;
+        globalEntry = cacheEntry;
+        if (gui != null) {
+            gui.invalidateRenderedPages();
+            if (affectsPageAmount(cacheEntry.element) || previous != null && affectsPageAmount(previous.element)) {
+                gui.invalidatePageAmount();
+            }
+        }
+        return cacheEntry;
+    }
+
+    private static void updateChildren(HumanEntity player, CacheEntry cacheEntry) {
         if (cacheEntry.element instanceof DynamicGuiElement) {
             ((DynamicGuiElement) cacheEntry.element).update(player);
         } else if (cacheEntry.element instanceof GuiElementGroup) {
             InventoryGui.updateElements(player, ((GuiElementGroup) cacheEntry.element).getElements());
         }
-        cachedElements.put(player.getUniqueId(), cacheEntry);
-        return cacheEntry;
+    }
+
+    /**
+     * Get whether the query of this element doesn't depend on the player and its result is shared by all viewers
+     * @return Whether this element is global
+     */
+    public boolean isGlobal() {
+        return global;
+    }
+
+    /**
+     * Check whether an element can have an effect on the amount of pages that a gui has
+     * @param element   The element to check
+     * @return          Whether it is an element with a size
+     */
+    private static boolean affectsPageAmount(GuiElement element) {
+        return element instanceof GuiElementGroup || element instanceof GuiStorageElement || element instanceof DynamicGuiElement;
     }
     
     @Override
@@ -120,11 +199,13 @@ public class DynamicGuiElement extends GuiElement {
     }
     
     /**
-     * Set the supplier for this element's content
+     * Set the supplier for this element's content. This makes the element player-dependent.
      * @param query The supplier query to set
      */
     public void setQuery(Function<HumanEntity, GuiElement> query) {
         this.query = query;
+        this.global = false;
+        this.globalEntry = null;
     }
 
     /**
@@ -148,6 +229,13 @@ public class DynamicGuiElement extends GuiElement {
      * @return The element that is currently cached
      */
     public GuiElement getCachedElement(HumanEntity who) {
+        if (global) {
+            CacheEntry cached = globalEntry;
+            if (cached == null) {
+                cached = update(who);
+            }
+            return cached.getElement();
+        }
         CacheEntry cached = cachedElements.get(who.getUniqueId());
         if (cached == null) {
             cached = update(who);
@@ -157,10 +245,21 @@ public class DynamicGuiElement extends GuiElement {
 
     /**
      * Remove the cached element if the player has one.
+     * The shared element of a global element stays cached for the other viewers but is still returned.
      * @param who The player to remove the cached element for
      * @return The element that was cached or null if none was cached
      */
     public GuiElement removeCachedElement(HumanEntity who) {
+        if (global) {
+            CacheEntry cached = globalEntry;
+            if (cached == null) {
+                return null;
+            }
+            if (cached.getElement() instanceof DynamicGuiElement) {
+                ((DynamicGuiElement) cached.getElement()).removeCachedElement(who);
+            }
+            return cached.getElement();
+        }
         CacheEntry cached = cachedElements.remove(who.getUniqueId());
         if (cached != null && cached.getElement() instanceof DynamicGuiElement) {
             ((DynamicGuiElement) cached.getElement()).removeCachedElement(who);
@@ -174,7 +273,7 @@ public class DynamicGuiElement extends GuiElement {
      * @return  The timestamp from when it was last cached or -1 if it wasn't cached
      */
     public long getLastCached(HumanEntity who) {
-        CacheEntry cached = cachedElements.get(who.getUniqueId());
+        CacheEntry cached = global ? globalEntry : cachedElements.get(who.getUniqueId());
         return cached != null ? cached.getCreated() : -1;
     }
 
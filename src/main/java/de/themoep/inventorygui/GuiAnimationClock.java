@@ -0,0 +1,201 @@
+package de.themoep.inventorygui;
+
+/*
+ * Copyright 2017 Max Lee (https://github.com/Phoenix616)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The clock that advances all {@link AnimatedGuiElement}s of a plugin. It runs a single task every tick while any gui
+ * with animated elements has viewers and only draws the slots of the elements whose frame changed for the viewers of
+ * their gui. The task is paused while nobody views an animated gui and resumed when one is shown again.
+ * Elements are only weakly referenced and get unregistered when their gui is destroyed.
+ */
+class GuiAnimationClock {
+    private static final Map<Plugin, GuiAnimationClock> CLOCKS = new ConcurrentHashMap<>();
+
+    private final Plugin plugin;
+    private final Set<AnimatedGuiElement> elements = Collections.newSetFromMap(new WeakHashMap<>());
+    private volatile long tick = 0;
+    private Runnable cancelTask = null;
+
+    private GuiAnimationClock(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Get the clock of a plugin
+     * @param plugin    The plugin
+     * @return          The clock, gets created if the plugin didn't have one yet
+     */
+    static GuiAnimationClock of(Plugin plugin) {
+        return CLOCKS.computeIfAbsent(plugin, GuiAnimationClock::new);
+    }
+
+    /**
+     * Get the amount of ticks that the clock of a plugin ran for without creating a clock
+     * @param plugin    The plugin
+     * @return          The current tick, <code>0</code> if the plugin has no clock
+     */
+    static long getTick(Plugin plugin) {
+        GuiAnimationClock clock = CLOCKS.get(plugin);
+        return clock != null ? clock.tick : 0;
+    }
+
+    /**
+     * Resume the clock of a plugin if it was paused because no animated gui had viewers
+     * @param plugin    The plugin
+     */
+    static void resume(Plugin plugin) {
+        GuiAnimationClock clock = CLOCKS.get(plugin);
+        if (clock != null) {
+            synchronized (clock) {
+                if (!clock.elements.isEmpty()) {
+                    clock.start();
+                }
+            }
+        }
+    }
+
+    /**
+     * Unregister all elements of a gui from the clock of its plugin, e.g. because the gui got destroyed
+     * @param gui   The gui
+     */
+    static void unregister(InventoryGui gui) {
+        GuiAnimationClock clock = CLOCKS.get(gui.getPlugin());
+        if (clock != null) {
+            synchronized (clock) {
+                clock.elements.removeIf(element -> element.getGui() == gui);
+                if (clock.elements.isEmpty()) {
+                    clock.stop();
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop and remove the clock of a plugin, e.g. because it got disabled
+     * @param plugin    The plugin
+     */
+    static void remove(Plugin plugin) {
+        GuiAnimationClock clock = CLOCKS.get(plugin);
+        if (clock != null) {
+            synchronized (clock) {
+                clock.elements.clear();
+                clock.stop();
+            }
+        }
+    }
+
+    /**
+     * Let this clock advance an element
+     * @param element   The element to register
+     */
+    synchronized void register(AnimatedGuiElement element) {
+        elements.add(element);
+        // A stopped clock might have been removed already
+        CLOCKS.putIfAbsent(plugin, this);
+        if (element.getGui() != null && element.getGui().hasViewers()) {
+            start();
+        }
+    }
+
+    private void start() {
+        if (cancelTask == null) {
+            if (InventoryGui.FOLIA) {
+                io.papermc.paper.threadedregions.scheduler.ScheduledTask task = plugin.getServer().getGlobalRegionScheduler()
+                        .runAtFixedRate(plugin, st -> advance(), 1, 1);
+                cancelTask = task::cancel;
+            } else {
+                org.bukkit.scheduler.BukkitTask task = plugin.getServer().getScheduler()
+                        .runTaskTimer(plugin, this::advance, 1, 1);
+                cancelTask = task::cancel;
+            }
+        }
+    }
+
+    /**
+     * Stop advancing an element
+     * @param element   The element to unregister
+     */
+    synchronized void unregister(AnimatedGuiElement element) {
+        elements.remove(element);
+        if (elements.isEmpty()) {
+            stop();
+        }
+    }
+
+    /**
+     * Cancel the task and remove this clock as it has no elements anymore
+     */
+    private void stop() {
+        pause();
+        CLOCKS.remove(plugin, this);
+    }
+
+    /**
+     * Cancel the task but keep the elements registered
+     */
+    private void pause() {
+        if (cancelTask != null) {
+            cancelTask.run();
+            cancelTask = null;
+        }
+    }
+
+    private void advance() {
+        long tick = ++this.tick;
+        List<AnimatedGuiElement> changed = new ArrayList<>();
+        synchronized (this) {
+            if (elements.isEmpty()) {
+                stop();
+                return;
+            }
+            boolean viewed = false;
+            for (AnimatedGuiElement element : elements) {
+                InventoryGui gui = element.getGui();
+                if (gui != null && gui.hasViewers()) {
+                    viewed = true;
+                    if (tick % element.getPeriod() == 0) {
+                        changed.add(element);
+                    }
+                }
+            }
+            if (!viewed) {
+                // Showing an animated gui resumes the clock again
+                pause();
+                return;
+            }
+        }
+        for (AnimatedGuiElement element : changed) {
+            element.getGui().drawElement(element, false);
+        }
+    }
+}
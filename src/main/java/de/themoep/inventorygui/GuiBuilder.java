@@ -0,0 +1,290 @@
+package de.themoep.inventorygui;
+
+/*
+ * Copyright 2017 Max Lee (https://github.com/Phoenix616)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A builder that creates many instances of the same gui, e.g. one per player. Only the compiled
+ * {@link GuiLayout} and the raw items, texts and actions of static element definitions are reused.
+ * Every created instance is a complete {@link InventoryGui} with its own listener, elements and render state.
+ */
+public class GuiBuilder {
+    private final Plugin plugin;
+    private final GuiLayout layout;
+    private String title;
+    private InventoryGui.InventoryCreator creator = null;
+    private BiConsumer<ItemMeta, String> itemNameSetter = ItemMeta::setDisplayName;
+    private BiConsumer<ItemMeta, List<String>> itemLoreSetter = ItemMeta::setLore;
+    private final List<Function<HumanEntity, GuiElement>> elements = new CopyOnWriteArrayList<>();
+    private ItemStack filler = null;
+    private GuiElement.Action outsideAction = click -> false;
+    private InventoryGui.CloseAction closeAction = InventoryGui.DEFAULT_CLOSE_ACTION;
+    private String clickSound = InventoryGui.getDefaultClickSound();
+    private boolean silent = false;
+    private GuiRenderScheduler renderScheduler = null;
+    private Executor renderExecutor = null;
+    private GuiInventoryPool inventoryPool = null;
+
+    /**
+     * Define a new gui builder
+     * @param plugin    Your plugin
+     * @param title     The name of the GUI. This will be the title of the inventory.
+     * @param layout    The compiled {@link GuiLayout} of the rows
+     */
+    public GuiBuilder(Plugin plugin, String title, GuiLayout layout) {
+        this.plugin = plugin;
+        this.title = title;
+        this.layout = Objects.requireNonNull(layout);
+    }
+
+    /**
+     * Define a new gui builder
+     * @param plugin    Your plugin
+     * @param title     The name of the GUI. This will be the title of the inventory.
+     * @param rows      How your rows are setup. Each element is getting assigned to a character.
+     *                  Empty/missing ones get filled with the Filler.
+     * @throws IllegalArgumentException Thrown when the provided rows cannot be matched to an InventoryType
+     */
+    public GuiBuilder(Plugin plugin, String title, String... rows) {
+        this(plugin, title, new GuiLayout(rows));
+    }
+
+    /**
+     * Create a new instance of this gui
+     * @param player    The player to create the instance for, gets passed to the element factories. Can be <code>null</code>.
+     * @return          The newly created {@link InventoryGui}
+     */
+    public InventoryGui create(HumanEntity player) {
+        return create(null, player);
+    }
+
+    /**
+     * Create a new instance of this gui
+     * @param owner     The holder that owns the created gui to retrieve it with {@link InventoryGui#get(InventoryHolder)}.
+     *                  Can be <code>null</code>.
+     * @param player    The player to create the instance for, gets passed to the element factories. Can be <code>null</code>.
+     * @return          The newly created {@link InventoryGui}
+     */
+    public InventoryGui create(InventoryHolder owner, HumanEntity player) {
+        InventoryGui gui;
+        if (creator != null) {
+            gui = new InventoryGui(plugin, creator, itemNameSetter, itemLoreSetter, owner, title, layout);
+        } else {
+            gui = new InventoryGui(plugin, owner, title, layout);
+            gui.setItemNameSetter(itemNameSetter);
+            gui.setItemLoreSetter(itemLoreSetter);
+        }
+        gui.setOutsideAction(outsideAction);
+        gui.setCloseAction(closeAction);
+        gui.setClickSound(clickSound);
+        gui.setSilent(silent);
+        gui.setRenderScheduler(renderScheduler);
+        gui.setRenderExecutor(renderExecutor);
+        gui.setInventoryPool(inventoryPool);
+        if (filler != null) {
+            gui.setFiller(filler);
+        }
+        for (Function<HumanEntity, GuiElement> factory : elements) {
+            GuiElement element = factory.apply(player);
+            if (element != null) {
+                gui.addElement(element);
+            }
+        }
+        return gui;
+    }
+
+    /**
+     * Add an element factory. It gets called once for every created instance and should return
+     * a new element each time as elements can only be part of one gui.
+     * @param factory   The factory that creates the element for the player that the instance gets created for.
+     *                  The player can be <code>null</code>. If it returns <code>null</code> then no element will be added.
+     */
+    public void addElement(Function<HumanEntity, GuiElement> factory) {
+        elements.add(Objects.requireNonNull(factory));
+    }
+
+    /**
+     * Add a {@link StaticGuiElement} definition. The item, text and action are shared between all instances.
+     * @param slotChar  The character to specify the elements position based on the gui setup string
+     * @param item      The item that should be displayed
+     * @param action    The {@link GuiElement.Action} to run when the player clicks on this element.
+     *                  Use {@link GuiElement.Click#getWhoClicked()} to access the player specific state.
+     * @param text      The text to display on this element, placeholders are automatically
+     *                  replaced, see {@link InventoryGui#replaceVars} for a list of the
+     *                  placeholder variables. Empty text strings are also filter out, use
+     *                  a single space if you want to add an empty line!<br>
+     *                  If it's not set/empty the item's default name will be used
+     */
+    public void addElement(char slotChar, ItemStack item, GuiElement.Action action, String... text) {
+        addElement(player -> new StaticGuiElement(slotChar, item, action, text));
+    }
+
+    /**
+     * Add a {@link StaticGuiElement} definition that has no action. The item and text are shared between all instances.
+     * @param slotChar  The character to specify the elements position based on the gui setup string
+     * @param item      The item that should be displayed
+     * @param text      The text to display on this element, placeholders are automatically
+     *                  replaced, see {@link InventoryGui#replaceVars} for a list of the
+     *                  placeholder variables. Empty text strings are also filter out, use
+     *                  a single space if you want to add an empty line!<br>
+     *                  If it's not set/empty the item's default name will be used
+     */
+    public void addElement(char slotChar, ItemStack item, String... text) {
+        addElement(slotChar, item, null, text);
+    }
+
+    /**
+     * Get all element factories of this builder
+     * @return An immutable list of the element factories
+     */
+    public List<Function<HumanEntity, GuiElement>> getElements() {
+        return Collections.unmodifiableList(elements);
+    }
+
+    /**
+     * Get the compiled layout of this builder
+     * @return The {@link GuiLayout} that all instances use
+     */
+    public GuiLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Get the title of the created guis
+     * @return The title
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Set the title of newly created guis. Does not change already created instances.
+     * @param title The title
+     */
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    /**
+     * Set the helper class which will create the custom inventory for the created guis.
+     * @param creator The inventory creator or <code>null</code> to use the default one
+     */
+    public void setInventoryCreator(InventoryGui.InventoryCreator creator) {
+        this.creator = creator;
+    }
+
+    /**
+     * Sets the setter for item names.
+     * @param itemNameSetter The item name setter BiConsumer taking the ItemMeta to be modified and the string for the name
+     */
+    public void setItemNameSetter(BiConsumer<ItemMeta, String> itemNameSetter) {
+        this.itemNameSetter = Objects.requireNonNull(itemNameSetter);
+    }
+
+    /**
+     * Sets the setter for item lores.
+     * @param itemLoreSetter The item lore setter BiConsumer taking the ItemMeta to be modified and the string list for the lore lines
+     */
+    public void setItemLoreSetter(BiConsumer<ItemMeta, List<String>> itemLoreSetter) {
+        this.itemLoreSetter = Objects.requireNonNull(itemLoreSetter);
+    }
+
+    /**
+     * Set the item of the filler element for empty slots
+     * @param filler    The item for the filler element; can be null if there should be no filler
+     */
+    public void setFiller(ItemStack filler) {
+        this.filler = filler;
+    }
+
+    /**
+     * Set the Action that is run when clicked outside of the inventory
+     * @param outsideAction The Action for when the player clicks outside the inventory; can be null
+     */
+    public void setOutsideAction(GuiElement.Action outsideAction) {
+        this.outsideAction = outsideAction;
+    }
+
+    /**
+     * Set the action that is run when the gui is closed; it should return true if the GUI should go back
+     * @param closeAction The action for when the player closes this inventory; can be null
+     */
+    public void setCloseAction(InventoryGui.CloseAction closeAction) {
+        this.closeAction = closeAction;
+    }
+
+    /**
+     * Set the sound that plays when a button (that isn't preventing the item from being taken) is clicked in the GUI.
+     * @param soundKey  The key of the sound to play, if null then no sound will play
+     */
+    public void setClickSound(String soundKey) {
+        this.clickSound = soundKey;
+    }
+
+    /**
+     * Set whether or not the created guis should make a sound when interacting with elements that make sound
+     * @param silent Whether or not to make a sound when interacted with
+     */
+    public void setSilent(boolean silent) {
+        this.silent = silent;
+    }
+
+    /**
+     * Set the scheduler that the created guis queue their draws in
+     * @param renderScheduler   The {@link GuiRenderScheduler} or <code>null</code> to draw immediately
+     */
+    public void setRenderScheduler(GuiRenderScheduler renderScheduler) {
+        this.renderScheduler = renderScheduler;
+    }
+
+    /**
+     * Set the executor that the created guis prepare their items on
+     * @param renderExecutor    The executor or <code>null</code> to prepare the items on the players' threads
+     * @see InventoryGui#setRenderExecutor(Executor)
+     */
+    public void setRenderExecutor(Executor renderExecutor) {
+        this.renderExecutor = renderExecutor;
+    }
+
+    /**
+     * Set the pool that the created guis take their inventories from
+     * @param inventoryPool The {@link GuiInventoryPool} or <code>null</code> to not pool inventories
+     * @see InventoryGui#setInventoryPool(GuiInventoryPool)
+     */
+    public void setInventoryPool(GuiInventoryPool inventoryPool) {
+        this.inventoryPool = inventoryPool;
+    }
+}
@@ -27,6 +27,13 @@ import org.bukkit.event.inventory.ClickType;
 import org.bukkit.event.inventory.InventoryInteractEvent;
 import org.bukkit.inventory.ItemStack;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
 /**
  * Represents an element in a gui
  */
@@ -35,6 +42,8 @@ public abstract class GuiElement {
     private Action action;
     protected int[] slots = new int[0];
     protected InventoryGui gui;
+    private volatile Set<String> tags = Collections.emptySet();
+    private Map<GuiValue<?>, BiConsumer<GuiElement, Object>> valueAppliers = null;
 
     /**
      * Represents an element in a gui
@@ -144,6 +153,89 @@ public abstract class GuiElement {
         return gui;
     }
 
+    /**
+     * Add tags to this element. Tagged elements can be drawn across all guis with {@link InventoryGui#updateTag(String)},
+     * e.g. tag all elements that show the price of an item with <code>item:diamond</code>.
+     * @param tags  The tags to add
+     */
+    public synchronized void addTags(String... tags) {
+        Set<String> newTags = new LinkedHashSet<>(this.tags);
+        for (String tag : tags) {
+            if (newTags.add(tag)) {
+                InventoryGui.indexTag(tag, this);
+            }
+        }
+        this.tags = Collections.unmodifiableSet(newTags);
+    }
+
+    /**
+     * Remove a tag from this element
+     * @param tag   The tag to remove
+     * @return      Whether the element had the tag
+     */
+    public synchronized boolean removeTag(String tag) {
+        if (!tags.contains(tag)) {
+            return false;
+        }
+        Set<String> newTags = new LinkedHashSet<>(tags);
+        newTags.remove(tag);
+        tags = newTags.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(newTags);
+        InventoryGui.unindexTag(tag, this);
+        return true;
+    }
+
+    /**
+     * Check whether this element has a certain tag
+     * @param tag   The tag
+     * @return      Whether the element has the tag
+     */
+    public boolean hasTag(String tag) {
+        return tags.contains(tag);
+    }
+
+    /**
+     * Get the tags of this element
+     * @return An immutable set of the tags
+     */
+    public Set<String> getTags() {
+        return tags;
+    }
+
+    /**
+     * Set the applier of a {@link GuiValue} that this element is bound to. It is stored on the element
+     * so that the value only needs to reference the element weakly.
+     * @param value     The value
+     * @param applier   The applier or <code>null</code> to remove it
+     */
+    synchronized void setValueApplier(GuiValue<?> value, BiConsumer<GuiElement, Object> applier) {
+        if (applier != null) {
+            if (valueAppliers == null) {
+                valueAppliers = new IdentityHashMap<>();
+            }
+            valueAppliers.put(value, applier);
+        } else if (valueAppliers != null) {
+            valueAppliers.remove(value);
+        }
+    }
+
+    /**
+     * Get the applier of a {@link GuiValue} that this element is bound to
+     * @param value The value
+     * @return      The applier or <code>null</code> if the element has none for that value
+     */
+    synchronized BiConsumer<GuiElement, Object> getValueApplier(GuiValue<?> value) {
+        return valueAppliers != null ? valueAppliers.get(value) : null;
+    }
+
+    /**
+     * Whether the item of this element is the same in every slot that it is displayed in for the same player.
+     * Slot-invariant elements only get their item rendered once per draw and the same item is used for all their slots.
+     * @return Whether the item doesn't depend on the slot
+     */
+    public boolean isSlotInvariant() {
+        return false;
+    }
+
     /**
      * Get the element which should handle all actions e.g. the resolved element of a DynamicGuiElement
      * @param who Who is viewing the GUI
@@ -177,6 +269,7 @@ public abstract class GuiElement {
         private ItemStack cursor;
         private final GuiElement element;
         private final InventoryInteractEvent event;
+        private boolean updateInventory = false;
 
         public Click(InventoryGui gui, int slot, ClickType clickType, ItemStack cursor, GuiElement element, InventoryInteractEvent event) {
             this.gui = gui;
@@ -246,5 +339,23 @@ public abstract class GuiElement {
         public InventoryGui getGui() {
             return gui;
         }
+
+        /**
+         * Get whether the whole inventory of the player should be sent to them again after the click was cancelled
+         * @return  Whether the whole inventory gets updated
+         */
+        public boolean shouldUpdateInventory() {
+            return updateInventory;
+        }
+
+        /**
+         * Set whether the whole inventory of the player should be sent to them again after the click was cancelled.
+         * By default the server only resends the clicked slot and the cursor, set this if the action changed
+         * multiple slots in a way that the client might not know about.
+         * @param updateInventory   Whether to update the whole inventory
+         */
+        public void setUpdateInventory(boolean updateInventory) {
+            this.updateInventory = updateInventory;
+        }
     }
 }
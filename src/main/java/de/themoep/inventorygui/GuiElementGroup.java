@@ -25,18 +25,29 @@ package de.themoep.inventorygui;
 import org.bukkit.entity.HumanEntity;
 import org.bukkit.inventory.ItemStack;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
 /**
  * Represents a group of multiple elements. Will be left-aligned by default.
  */
 public class GuiElementGroup extends GuiElement {
-    private List<GuiElement> elements = new CopyOnWriteArrayList<>();
+    private volatile List<GuiElement> elements = Collections.emptyList();
     private GuiElement filler = null;
     private Alignment alignment = Alignment.LEFT;
+    private final Map<UUID, View> views = new ConcurrentHashMap<>();
+    private volatile GuiSearchIndex searchIndex = null;
     
     /**
      * A group of elements
@@ -46,18 +57,18 @@ public class GuiElementGroup extends GuiElement {
     public GuiElementGroup(char slotChar, GuiElement... elements) {
         super(slotChar, null);
         setAction(click -> {
-            GuiElement element = getElement(click.getSlot(), click.getGui().getPageNumber(click.getWhoClicked()));
+            GuiElement element = getElement(click.getWhoClicked(), click.getSlot(), click.getGui().getPageNumber(click.getWhoClicked()));
             if (element != null && element.getAction(click.getRawEvent().getWhoClicked()) != null) {
                 return element.getAction(click.getWhoClicked()).onClick(click);
             }
             return true;
         });
-        Collections.addAll(this.elements, elements);
+        this.elements = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(elements)));
     }
 
     @Override
     public ItemStack getItem(HumanEntity who, int slot) {
-        GuiElement element = getElement(slot, gui.getPageNumber(who));
+        GuiElement element = getElement(who, slot, gui.getPageNumber(who));
         if (element != null) {
             return element.getItem(who, slot);
         }
@@ -66,7 +77,7 @@ public class GuiElementGroup extends GuiElement {
 
     @Override
     public GuiElement getEffectiveElement(HumanEntity who, int slot) {
-        GuiElement element = getElement(slot, gui.getPageNumber(who));
+        GuiElement element = getElement(who, slot, gui.getPageNumber(who));
         if (element != null) {
             return element.getEffectiveElement(who, slot);
         }
@@ -101,11 +112,7 @@ public class GuiElementGroup extends GuiElement {
      * @param element   The element to add
      */
     public void addElement(GuiElement element){
-        elements.add(element);
-        if (element != null) {
-            element.setGui(gui);
-            element.setSlots(slots);
-        }
+        addElements(Collections.singletonList(element));
     }
     
     /**
@@ -113,9 +120,7 @@ public class GuiElementGroup extends GuiElement {
      * @param elements  The elements to add
      */
     public void addElements(GuiElement... elements){
-        for (GuiElement element : elements) {
-            addElement(element);
-        }
+        addElements(Arrays.asList(elements));
     }
     
     /**
@@ -123,9 +128,60 @@ public class GuiElementGroup extends GuiElement {
      * @param elements  The elements to add
      */
     public void addElements(Collection<GuiElement> elements){
-        for (GuiElement element : elements) {
-            addElement(element);
+        synchronized (this) {
+            int start = this.elements.size();
+            List<GuiElement> snapshot = new ArrayList<>(start + elements.size());
+            snapshot.addAll(this.elements);
+            snapshot.addAll(prepareElements(elements));
+            this.elements = Collections.unmodifiableList(snapshot);
+            if (searchIndex != null) {
+                searchIndex.append(this.elements, start);
+            }
+        }
+        if (gui != null) {
+            gui.invalidatePageAmount();
+        }
+    }
+
+    /**
+     * Replace all elements of this group at once. Readers will either see the old or the new elements, never a mix.
+     * @param elements  The new elements of this group
+     */
+    public void setElements(GuiElement... elements){
+        setElements(Arrays.asList(elements));
+    }
+
+    /**
+     * Replace all elements of this group at once. Readers will either see the old or the new elements, never a mix.
+     * @param elements  The new elements of this group
+     */
+    public void setElements(Collection<GuiElement> elements){
+        List<GuiElement> snapshot = Collections.unmodifiableList(prepareElements(elements));
+        synchronized (this) {
+            this.elements = snapshot;
+            if (searchIndex != null) {
+                searchIndex.rebuild(snapshot);
+            }
+        }
+        if (gui != null) {
+            gui.invalidatePageAmount();
+        }
+    }
+
+    /**
+     * Copy elements into a new list and set this group's gui and slots on them
+     * @param elements  The elements to prepare
+     * @return          A new list containing the elements
+     */
+    private List<GuiElement> prepareElements(Collection<GuiElement> elements) {
+        List<GuiElement> list = new ArrayList<>(elements);
+        for (GuiElement element : list) {
+            if (element != null) {
+                element.setGui(gui);
+                element.setSlots(slots);
+            }
         }
+        return list;
     }
 
     /**
@@ -144,6 +200,21 @@ public class GuiElementGroup extends GuiElement {
      * @return              The GuiElement in that slot or <code>null</code>
      */
     public GuiElement getElement(int slot, int pageNumber) {
+        return getElement(elements, slot, pageNumber);
+    }
+
+    /**
+     * Get the element in a certain slot on a certain page in the view of a player
+     * @param who           The player whose view to use, see {@link #setView(HumanEntity, Predicate, Comparator)}
+     * @param slot          The slot to get the element for
+     * @param pageNumber    The number of the page that the gui is on
+     * @return              The GuiElement in that slot or <code>null</code>
+     */
+    public GuiElement getElement(HumanEntity who, int slot, int pageNumber) {
+        return getElement(getViewElements(who), slot, pageNumber);
+    }
+
+    private GuiElement getElement(List<GuiElement> elements, int slot, int pageNumber) {
         if (elements.isEmpty()) {
             return null;
         }
@@ -210,19 +281,27 @@ public class GuiElementGroup extends GuiElement {
     }
 
     /**
-     * Get all elements of this group. This list is immutable, use {@link #addElement(GuiElement)}
-     * and {@link #clearElements()} to modify the elements in this group.
+     * Get all elements of this group. This list is an immutable snapshot, use {@link #addElement(GuiElement)},
+     * {@link #setElements(Collection)} and {@link #clearElements()} to modify the elements in this group.
      * @return An immutable list of all elements in this group
      */
     public List<GuiElement> getElements() {
-        return Collections.unmodifiableList(elements);
+        return elements;
     }
 
     /**
      * Removes all elements in the group
      */
     public void clearElements() {
-        elements.clear();
+        synchronized (this) {
+            elements = Collections.emptyList();
+            if (searchIndex != null) {
+                searchIndex.rebuild(elements);
+            }
+        }
+        if (gui != null) {
+            gui.invalidatePageAmount();
+        }
     }
     
     /**
@@ -261,6 +340,130 @@ public class GuiElementGroup extends GuiElement {
         return elements.size();
     }
 
+    /**
+     * Get the size of this group in the view of a player
+     * @param who   The player whose view to use, see {@link #setView(HumanEntity, Predicate, Comparator)}
+     * @return      The amount of elements that the player sees
+     */
+    public int size(HumanEntity who) {
+        return getViewElements(who).size();
+    }
+
+    /**
+     * Set a view of this group's elements for a player. The view only stores the indices of the visible elements
+     * in their sorted order and is recalculated automatically when the elements of this group change.
+     * The gui needs to be drawn for the player afterwards to show the changed view.
+     * @param who       The player to set the view for
+     * @param filter    Which elements should be shown; <code>null</code> to show all elements
+     * @param sort      How to sort the shown elements; <code>null</code> to keep the order of the group
+     */
+    public void setView(HumanEntity who, Predicate<GuiElement> filter, Comparator<GuiElement> sort) {
+        if (filter == null && sort == null) {
+            removeView(who);
+            return;
+        }
+        views.put(who.getUniqueId(), new View(elements -> {
+            IntStream indices = IntStream.range(0, elements.size());
+            if (filter != null) {
+                indices = indices.filter(i -> filter.test(elements.get(i)));
+            }
+            if (sort != null) {
+                indices = indices.boxed()
+                        .sorted(Comparator.comparing(elements::get, sort))
+                        .mapToInt(Integer::intValue);
+            }
+            return indices.toArray();
+        }));
+        if (gui != null) {
+            gui.invalidatePageAmount(who);
+        }
+    }
+
+    /**
+     * Set a view for a player that only shows the elements matching a search query,
+     * see {@link #search(String)} for how the query is matched.
+     * The gui needs to be drawn for the player afterwards to show the changed view.
+     * @param who   The player to set the view for
+     * @param query The query; <code>null</code> or an empty one to show all elements
+     */
+    public void setSearch(HumanEntity who, String query) {
+        if (query == null || query.trim().isEmpty()) {
+            removeView(who);
+            return;
+        }
+        views.put(who.getUniqueId(), new View(elements -> searchIndices(elements, query)));
+        if (gui != null) {
+            gui.invalidatePageAmount(who);
+        }
+    }
+
+    /**
+     * Search for elements whose text contains all the whitespace separated terms of a query, ignoring case and colors.
+     * Only the text of {@link StaticGuiElement}s is searched. This uses the search index if the group is
+     * {@link #setSearchable(boolean) searchable} and checks every element otherwise.
+     * @param query The query to search for
+     * @return      An immutable list of the matching elements in the order of the group
+     */
+    public List<GuiElement> search(String query) {
+        List<GuiElement> elements = this.elements;
+        return new ViewList(elements, searchIndices(elements, query));
+    }
+
+    private int[] searchIndices(List<GuiElement> elements, String query) {
+        GuiSearchIndex index = searchIndex;
+        int[] indices = index != null ? index.search(elements, query) : null;
+        if (indices == null) {
+            indices = IntStream.range(0, elements.size())
+                    .filter(i -> GuiSearchIndex.matches(elements.get(i), query))
+                    .toArray();
+        }
+        return indices;
+    }
+
+    /**
+     * Set whether this group should keep a search index of its elements' texts. The index is updated when elements
+     * get added or replaced but changing the text of an element that is already in the group won't update it,
+     * re-enable the index to rebuild it in that case.
+     * @param searchable    Whether to keep a search index
+     */
+    public void setSearchable(boolean searchable) {
+        synchronized (this) {
+            searchIndex = searchable ? new GuiSearchIndex(elements) : null;
+        }
+    }
+
+    /**
+     * Get whether this group keeps a search index of its elements' texts
+     * @return  Whether this group keeps a search index
+     */
+    public boolean isSearchable() {
+        return searchIndex != null;
+    }
+
+    /**
+     * Remove the view of a player so that they see all elements of this group again
+     * @param who   The player to remove the view for
+     */
+    public void removeView(HumanEntity who) {
+        if (views.remove(who.getUniqueId()) != null && gui != null) {
+            gui.invalidatePageAmount(who);
+        }
+    }
+
+    /**
+     * Get the elements that a player sees
+     * @param who   The player, can be <code>null</code>
+     * @return      The elements in the view of the player or all elements if they have no view
+     */
+    private List<GuiElement> getViewElements(HumanEntity who) {
+        List<GuiElement> elements = this.elements;
+        if (who == null) {
+            return elements;
+        }
+        View view = views.get(who.getUniqueId());
+        return view != null ? view.getElements(elements) : elements;
+    }
+
     /**
      * Set the alignment of the elements in this group
      * @param alignment The alignment
@@ -277,6 +480,47 @@ public class GuiElementGroup extends GuiElement {
         return alignment;
     }
 
+    /**
+     * A view of the elements that only stores the indices of the shown elements in the elements snapshot
+     */
+    private static class View {
+        private final Function<List<GuiElement>, int[]> selector;
+        private volatile ViewList list = null;
+
+        private View(Function<List<GuiElement>, int[]> selector) {
+            this.selector = selector;
+        }
+
+        private List<GuiElement> getElements(List<GuiElement> elements) {
+            ViewList list = this.list;
+            if (list == null || list.elements != elements) {
+                list = new ViewList(elements, selector.apply(elements));
+                this.list = list;
+            }
+            return list;
+        }
+    }
+
+    private static class ViewList extends AbstractList<GuiElement> {
+        private final List<GuiElement> elements;
+        private final int[] indices;
+
+        private ViewList(List<GuiElement> elements, int[] indices) {
+            this.elements = elements;
+            this.indices = indices;
+        }
+
+        @Override
+        public GuiElement get(int index) {
+            return elements.get(indices[index]);
+        }
+
+        @Override
+        public int size() {
+            return indices.length;
+        }
+    }
+
     public enum Alignment {
         LEFT,
         CENTER,
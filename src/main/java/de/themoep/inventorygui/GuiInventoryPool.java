@@ -0,0 +1,107 @@
+package de.themoep.inventorygui;
+
+/*
+ * Copyright 2017 Max Lee (https://github.com/Phoenix616)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * A pool of inventories that guis created with the default {@link InventoryGui.InventoryCreator} put their inventories
+ * in when they aren't used anymore and take them from instead of creating new ones. Inventories are pooled by their
+ * type, size and title as the title can't be changed after creation. The same pool can be shared by multiple guis.
+ */
+public class GuiInventoryPool {
+    private final Map<List<Object>, Deque<Inventory>> pool = new ConcurrentHashMap<>();
+    private final int maxPerKey;
+
+    /**
+     * Create a new inventory pool
+     * @param maxPerKey The maximum amount of inventories to keep for the same type, size and title
+     */
+    public GuiInventoryPool(int maxPerKey) {
+        this.maxPerKey = maxPerKey;
+    }
+
+    /**
+     * Take an unused inventory out of the pool and assign it to a gui
+     * @param gui   The gui to assign the inventory to
+     * @param type  The type of the inventory, {@link InventoryType#CHEST} for inventories created by their size
+     * @param size  The size of the inventory
+     * @param title The title of the inventory
+     * @return      An empty inventory or <code>null</code> if there was none with the same type, size and title
+     */
+    Inventory acquire(InventoryGui gui, InventoryType type, int size, String title) {
+        Deque<Inventory> inventories = pool.get(getKey(type, size, title));
+        Inventory inventory = inventories != null ? inventories.pollFirst() : null;
+        if (inventory != null) {
+            ((InventoryGui.Holder) inventory.getHolder()).setGui(gui);
+        }
+        return inventory;
+    }
+
+    /**
+     * Clear an inventory that isn't used anymore and put it into the pool. Only inventories held by a
+     * {@link InventoryGui.Holder} which knows the title of its inventory can be pooled.
+     * @param inventory The inventory to release
+     */
+    void release(Inventory inventory) {
+        if (!(inventory.getHolder() instanceof InventoryGui.Holder)) {
+            return;
+        }
+        String title = ((InventoryGui.Holder) inventory.getHolder()).getTitle();
+        if (title == null) {
+            return;
+        }
+        inventory.clear();
+        Deque<Inventory> inventories = pool.computeIfAbsent(getKey(inventory.getType(), inventory.getSize(), title), k -> new ConcurrentLinkedDeque<>());
+        if (inventories.size() < maxPerKey && !inventories.contains(inventory)) {
+            inventories.offerFirst(inventory);
+        }
+    }
+
+    private static List<Object> getKey(InventoryType type, int size, String title) {
+        return Arrays.asList(type, size, title);
+    }
+
+    /**
+     * Get the amount of inventories that are currently waiting in this pool
+     * @return The amount of pooled inventories
+     */
+    public int size() {
+        return pool.values().stream().mapToInt(Deque::size).sum();
+    }
+
+    /**
+     * Remove all inventories from this pool
+     */
+    public void clear() {
+        pool.clear();
+    }
+}
@@ -0,0 +1,148 @@
+package de.themoep.inventorygui;
+
+/*
+ * Copyright 2017 Max Lee (https://github.com/Phoenix616)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.bukkit.event.inventory.InventoryType;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The compiled setup of a gui. This parses the row strings once and can then be shared
+ * between any amount of {@link InventoryGui}s that use the same setup.
+ */
+public final class GuiLayout {
+
+    private final static int[] ROW_WIDTHS = {3, 5, 9};
+    private final static InventoryType[] INVENTORY_TYPES = {
+            InventoryType.DISPENSER, // 3*3
+            InventoryType.HOPPER, // 5*1
+            InventoryType.CHEST // 9*x
+    };
+    private final static int[] NO_SLOTS = new int[0];
+
+    private final InventoryType inventoryType;
+    private final int width;
+    private final char[] slots;
+    private final Map<Character, int[]> slotMap;
+
+    /**
+     * Compile a new layout from the row setup
+     * @param rows  How your rows are setup. Each element is getting assigned to a character.
+     *              Empty/missing ones get filled with the Filler.
+     * @throws IllegalArgumentException Thrown when the provided rows cannot be matched to an InventoryType
+     */
+    public GuiLayout(String... rows) {
+        int width = ROW_WIDTHS[0];
+        for (String row : rows) {
+            if (row.length() > width) {
+                width = row.length();
+            }
+        }
+        InventoryType inventoryType = null;
+        for (int i = 0; i < ROW_WIDTHS.length && i < INVENTORY_TYPES.length; i++) {
+            if (width < ROW_WIDTHS[i]) {
+                width = ROW_WIDTHS[i];
+            }
+            if (width == ROW_WIDTHS[i]) {
+                inventoryType = INVENTORY_TYPES[i];
+                break;
+            }
+        }
+        if (inventoryType == null) {
+            throw new IllegalArgumentException("Could not match row setup to an inventory type!");
+        }
+        this.width = width;
+        this.inventoryType = inventoryType;
+
+        slots = new char[rows.length * width];
+        Arrays.fill(slots, ' ');
+        for (int r = 0; r < rows.length; r++) {
+            String row = rows[r];
+            // Center rows that are shorter than the width, the odd space goes to the right side
+            int offset = row.length() < width ? (width - row.length()) / 2 : 0;
+            row.getChars(0, Math.min(row.length(), width), slots, r * width + offset);
+        }
+
+        Map<Character, Integer> counts = new HashMap<>();
+        for (char c : slots) {
+            counts.merge(c, 1, Integer::sum);
+        }
+        Map<Character, int[]> slotMap = new HashMap<>();
+        for (Map.Entry<Character, Integer> entry : counts.entrySet()) {
+            slotMap.put(entry.getKey(), new int[entry.getValue()]);
+        }
+        Map<Character, Integer> positions = new HashMap<>();
+        for (int i = 0; i < slots.length; i++) {
+            int position = positions.merge(slots[i], 1, Integer::sum) - 1;
+            slotMap.get(slots[i])[position] = i;
+        }
+        this.slotMap = Collections.unmodifiableMap(slotMap);
+    }
+
+    /**
+     * Get the type of inventory that this layout needs
+     * @return The inventory type
+     */
+    public InventoryType getInventoryType() {
+        return inventoryType;
+    }
+
+    /**
+     * Get the width of the layout in slots
+     * @return The width of the layout
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get the amount of slots in this layout
+     * @return The amount of slots
+     */
+    public int getSize() {
+        return slots.length;
+    }
+
+    /**
+     * Get the character that a certain slot is assigned to
+     * @param slot  The slot
+     * @return      The character of that slot
+     * @throws ArrayIndexOutOfBoundsException Thrown if the slot is outside of this layout
+     */
+    public char getSlotChar(int slot) {
+        return slots[slot];
+    }
+
+    /**
+     * Get the slots that a certain character is assigned to. The returned array is shared
+     * between all users of this layout and must not be modified!
+     * @param slotChar  The character to get the slots for
+     * @return          The slots in ascending order, an empty array if the character isn't used
+     */
+    public int[] getSlots(char slotChar) {
+        return slotMap.getOrDefault(slotChar, NO_SLOTS);
+    }
+}
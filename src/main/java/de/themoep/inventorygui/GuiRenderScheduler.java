@@ -0,0 +1,229 @@
+package de.themoep.inventorygui;
+
+/*
+ * Copyright 2017 Max Lee (https://github.com/Phoenix616)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spreads the drawing of guis over multiple ticks. Draw requests are queued per gui and viewer,
+ * requesting the same draw multiple times before it happened only draws once. Each tick the queue
+ * gets drained until the configured time budget is used up, the rest is deferred to the next tick.
+ * <br>
+ * A single scheduler is meant to be shared by all the guis of a plugin via {@link InventoryGui#setRenderScheduler}.
+ * On Folia the draws run on the viewers' own region threads where the time they take can't be measured,
+ * so instead of the time budget a maximum amount of draws gets handed to the regions each tick.
+ */
+public class GuiRenderScheduler {
+    private final Plugin plugin;
+    private long budget;
+    private int dispatchLimit = 64;
+    private final Map<RenderKey, Boolean> queue = new LinkedHashMap<>();
+    private long deferredFrames = 0;
+    private Runnable cancelTask = null;
+
+    /**
+     * Create a new render scheduler
+     * @param plugin    The plugin to run the drain task with
+     * @param budget    The maximum time that should be spent drawing each tick
+     * @param unit      The unit of the budget
+     */
+    public GuiRenderScheduler(Plugin plugin, long budget, TimeUnit unit) {
+        this.plugin = Objects.requireNonNull(plugin);
+        setBudget(budget, unit);
+    }
+
+    /**
+     * Queue a draw of a gui for a viewer. If the same draw is already queued then it won't be queued again.
+     * @param gui           The gui to draw
+     * @param viewer        The viewer to draw the gui for
+     * @param updateDynamic Whether to update dynamic elements. A queued draw will update them if any request wanted it.
+     */
+    public void queue(InventoryGui gui, HumanEntity viewer, boolean updateDynamic) {
+        synchronized (queue) {
+            queue.merge(new RenderKey(gui, viewer.getUniqueId()), updateDynamic, Boolean::logicalOr);
+            if (cancelTask == null) {
+                startTask();
+            }
+        }
+    }
+
+    private void startTask() {
+        if (InventoryGui.FOLIA) {
+            io.papermc.paper.threadedregions.scheduler.ScheduledTask task = plugin.getServer().getGlobalRegionScheduler()
+                    .runAtFixedRate(plugin, st -> drain(), 1, 1);
+            cancelTask = task::cancel;
+        } else {
+            org.bukkit.scheduler.BukkitTask task = plugin.getServer().getScheduler()
+                    .runTaskTimer(plugin, this::drain, 1, 1);
+            cancelTask = task::cancel;
+        }
+    }
+
+    /**
+     * Remove all queued draws of a gui
+     * @param gui   The gui to remove the draws of
+     */
+    void remove(InventoryGui gui) {
+        synchronized (queue) {
+            queue.keySet().removeIf(key -> key.gui == gui);
+        }
+    }
+
+    /**
+     * Remove the queued draw of a gui for a viewer
+     * @param gui       The gui to remove the draw of
+     * @param playerId  The UUID of the viewer
+     */
+    void remove(InventoryGui gui, UUID playerId) {
+        synchronized (queue) {
+            queue.remove(new RenderKey(gui, playerId));
+        }
+    }
+
+    /**
+     * Draw queued requests until the budget for this tick is used up. At least one request is drawn each tick.
+     * On Folia up to the dispatch limit of requests are handed to the viewers' threads.
+     */
+    private void drain() {
+        long start = System.nanoTime();
+        int drawn = 0;
+        while (drawn == 0 || (InventoryGui.FOLIA ? drawn < dispatchLimit : System.nanoTime() - start < budget)) {
+            Map.Entry<RenderKey, Boolean> next;
+            synchronized (queue) {
+                Iterator<Map.Entry<RenderKey, Boolean>> it = queue.entrySet().iterator();
+                if (!it.hasNext()) {
+                    break;
+                }
+                next = it.next();
+                it.remove();
+            }
+            Player player = plugin.getServer().getPlayer(next.getKey().playerId);
+            if (player != null) {
+                InventoryGui gui = next.getKey().gui;
+                boolean updateDynamic = next.getValue();
+                // Skips players who closed the gui since the draw was queued
+                gui.runTaskOrNow(player, () -> gui.drawViewer(player, updateDynamic));
+            }
+            drawn++;
+        }
+        synchronized (queue) {
+            deferredFrames += queue.size();
+            if (queue.isEmpty() && cancelTask != null) {
+                cancelTask.run();
+                cancelTask = null;
+            }
+        }
+    }
+
+    /**
+     * Get the time that may be spent drawing each tick
+     * @param unit  The unit to get the budget in
+     * @return      The budget per tick
+     */
+    public long getBudget(TimeUnit unit) {
+        return unit.convert(budget, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Set the time that may be spent drawing each tick. Not applied on Folia, see {@link #setDispatchLimit(int)}.
+     * @param budget    The budget per tick
+     * @param unit      The unit of the budget
+     */
+    public void setBudget(long budget, TimeUnit unit) {
+        this.budget = unit.toNanos(budget);
+    }
+
+    /**
+     * Get the maximum amount of draws that are handed to the region threads each tick on Folia
+     * @return The dispatch limit per tick
+     */
+    public int getDispatchLimit() {
+        return dispatchLimit;
+    }
+
+    /**
+     * Set the maximum amount of draws that are handed to the region threads each tick on Folia.
+     * This is used instead of the time budget there. At least one draw is dispatched each tick.
+     * @param dispatchLimit The dispatch limit per tick
+     */
+    public void setDispatchLimit(int dispatchLimit) {
+        this.dispatchLimit = Math.max(dispatchLimit, 1);
+    }
+
+    /**
+     * Get the amount of draws that are currently waiting in the queue
+     * @return The queue depth
+     */
+    public int getQueueDepth() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    /**
+     * Get the total amount of times that a queued draw had to be deferred to a later tick
+     * because the budget of the tick was used up
+     * @return The amount of deferred frames
+     */
+    public long getDeferredFrames() {
+        synchronized (queue) {
+            return deferredFrames;
+        }
+    }
+
+    private static class RenderKey {
+        private final InventoryGui gui;
+        private final UUID playerId;
+
+        private RenderKey(InventoryGui gui, UUID playerId) {
+            this.gui = gui;
+            this.playerId = playerId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RenderKey)) {
+                return false;
+            }
+            RenderKey other = (RenderKey) o;
+            return gui == other.gui && playerId.equals(other.playerId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(gui) + playerId.hashCode();
+        }
+    }
+}
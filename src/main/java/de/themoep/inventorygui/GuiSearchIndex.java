@@ -0,0 +1,201 @@
+package de.themoep.inventorygui;
+
+/*
+ * Copyright 2017 Max Lee (https://github.com/Phoenix616)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.bukkit.ChatColor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A trigram index over the text of the {@link StaticGuiElement}s in a {@link GuiElementGroup}.
+ * It maps every three character sequence of the lower case, color-less texts to the sorted
+ * indices of the elements that contain it and is appended to when elements get added.
+ */
+class GuiSearchIndex {
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final List<String> texts = new ArrayList<>();
+    private List<GuiElement> source;
+
+    GuiSearchIndex(List<GuiElement> elements) {
+        rebuild(elements);
+    }
+
+    /**
+     * Discard the index and index all elements of a snapshot
+     * @param elements  The new snapshot of the group's elements
+     */
+    synchronized void rebuild(List<GuiElement> elements) {
+        postings.clear();
+        texts.clear();
+        source = elements;
+        index(elements, 0);
+    }
+
+    /**
+     * Index the elements that got appended to the previous snapshot
+     * @param elements  The new snapshot of the group's elements
+     * @param start     The index of the first new element
+     */
+    synchronized void append(List<GuiElement> elements, int start) {
+        if (texts.size() != start) {
+            rebuild(elements);
+            return;
+        }
+        source = elements;
+        index(elements, start);
+    }
+
+    private void index(List<GuiElement> elements, int start) {
+        for (int i = start; i < elements.size(); i++) {
+            String text = getText(elements.get(i));
+            texts.add(text);
+            for (int c = 0; c + 3 <= text.length(); c++) {
+                postings.computeIfAbsent(trigram(text, c), t -> new Postings()).add(i);
+            }
+        }
+    }
+
+    /**
+     * Search for elements whose text contains all the whitespace separated terms of a query
+     * @param elements  The snapshot of the group's elements to search in
+     * @param query     The query, case and colors are ignored
+     * @return          The sorted indices of the matching elements or <code>null</code> if the index
+     *                  isn't for that snapshot of the elements
+     */
+    synchronized int[] search(List<GuiElement> elements, String query) {
+        if (elements != source) {
+            return null;
+        }
+        String[] terms = normalize(query).trim().split("\\s+");
+
+        int[] candidates = null;
+        for (String term : terms) {
+            for (int c = 0; c + 3 <= term.length(); c++) {
+                Postings termPostings = postings.get(trigram(term, c));
+                if (termPostings == null) {
+                    return new int[0];
+                }
+                candidates = candidates == null ? termPostings.toArray() : termPostings.retain(candidates);
+                if (candidates.length == 0) {
+                    return candidates;
+                }
+            }
+        }
+
+        int[] result = new int[candidates != null ? candidates.length : texts.size()];
+        int size = 0;
+        for (int r = 0; r < result.length; r++) {
+            int i = candidates != null ? candidates[r] : r;
+            if (matches(texts.get(i), terms)) {
+                result[size++] = i;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Check whether an element's text contains all the whitespace separated terms of a query without using an index
+     * @param element   The element to check
+     * @param query     The query, case and colors are ignored
+     * @return          Whether the element matches
+     */
+    static boolean matches(GuiElement element, String query) {
+        return matches(getText(element), normalize(query).trim().split("\\s+"));
+    }
+
+    private static boolean matches(String text, String[] terms) {
+        for (String term : terms) {
+            if (!text.contains(term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getText(GuiElement element) {
+        if (element instanceof StaticGuiElement && ((StaticGuiElement) element).getText() != null) {
+            return normalize(String.join("\n", ((StaticGuiElement) element).getText()));
+        }
+        return "";
+    }
+
+    private static String normalize(String text) {
+        String stripped = ChatColor.stripColor(ChatColor.translateAlternateColorCodes('&', text));
+        return stripped != null ? stripped.toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    /**
+     * A growable sorted list of element indices
+     */
+    private static class Postings {
+        private int[] indices = new int[4];
+        private int size = 0;
+
+        private void add(int index) {
+            if (size > 0 && indices[size - 1] == index) {
+                return;
+            }
+            if (size == indices.length) {
+                indices = Arrays.copyOf(indices, size * 2);
+            }
+            indices[size++] = index;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(indices, size);
+        }
+
+        /**
+         * Get the candidates that are also contained in this list
+         * @param candidates    The sorted candidates
+         * @return              The sorted intersection
+         */
+        private int[] retain(int[] candidates) {
+            int[] result = new int[Math.min(size, candidates.length)];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < size && j < candidates.length) {
+                if (indices[i] < candidates[j]) {
+                    i++;
+                } else if (indices[i] > candidates[j]) {
+                    j++;
+                } else {
+                    result[count++] = indices[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+    }
+}
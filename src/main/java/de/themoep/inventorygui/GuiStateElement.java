@@ -148,6 +148,9 @@ public class GuiStateElement extends GuiElement {
     public State nextState() {
         queryCurrentState();
         currentState = states.length > currentState + 1 ? currentState + 1 : 0;
+        if (gui != null) {
+            gui.invalidateRenderedPages();
+        }
         return states[currentState];
     }
 
@@ -158,6 +161,9 @@ public class GuiStateElement extends GuiElement {
     public State previousState() {
         queryCurrentState();
         currentState = currentState > 0 ? currentState - 1 : states.length - 1;
+        if (gui != null) {
+            gui.invalidateRenderedPages();
+        }
         return states[currentState];
     }
 
@@ -166,6 +172,15 @@ public class GuiStateElement extends GuiElement {
         return getState().getItem(who);
     }
 
+    /**
+     * The item only depends on the state. Subclasses might not so they need to opt in by overriding this.
+     * @return <code>true</code> if this is a plain {@link GuiStateElement}
+     */
+    @Override
+    public boolean isSlotInvariant() {
+        return getClass() == GuiStateElement.class;
+    }
+
     @Override
     public void setGui(InventoryGui gui) {
         super.setGui(gui);
@@ -231,6 +246,17 @@ public class GuiStateElement extends GuiElement {
      */
     public void setState(String key) throws IllegalArgumentException {
         currentState = getStateIndex(key, states);
+        if (gui != null) {
+            gui.invalidateRenderedPages();
+        }
+    }
+
+    /**
+     * Whether the current state is queried from a supplier and can therefore change at any time
+     * @return Whether this element has a state query
+     */
+    boolean hasStateQuery() {
+        return queryState != null;
     }
 
     /**
@@ -287,6 +313,9 @@ public class GuiStateElement extends GuiElement {
          */
         public void setText(String... text) {
             this.text = text;
+            if (gui != null) {
+                gui.invalidateRenderedPages();
+            }
         }
 
         /**
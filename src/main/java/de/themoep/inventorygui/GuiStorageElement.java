@@ -31,6 +31,10 @@ import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
@@ -42,10 +46,19 @@ import java.util.function.Function;
  */
 public class GuiStorageElement extends GuiElement {
     private final static String STORAGE_SYSTEM_PROPERTY = GuiStorageElement.class.getName() + ".forceAllow";
+    /**
+     * The order in which items get moved into the player inventory's slots when shift-clicking:
+     * the hotbar backwards and then the main inventory backwards
+     */
+    private final static int[] PLAYER_INVENTORY_MOVE_ORDER = {
+            8, 7, 6, 5, 4, 3, 2, 1, 0,
+            35, 34, 33, 32, 31, 30, 29, 28, 27, 26, 25, 24, 23, 22, 21, 20, 19, 18, 17, 16, 15, 14, 13, 12, 11, 10, 9
+    };
 
     private final Inventory storage;
     private final int invSlot;
     private Runnable applyStorage;
+    private Consumer<Journal> applyChanges;
     private Function<ValidatorInfo, Boolean> placeValidator;
     private Function<ValidatorInfo, Boolean> takeValidator;
 
@@ -138,33 +151,16 @@ public class GuiStorageElement extends GuiElement {
                 case CLONE_STACK:
                     return !validateItemTake(click.getSlot(), slotItem);
                 case MOVE_TO_OTHER_INVENTORY:
-                    final GuiView view = GuiView.of(event.getView());
-                    if (event.getRawSlot() < view.getTopInventory().getSize()) {
+                    if (event.getRawSlot() < GuiView.of(event.getView()).getTopInventory().getSize()) {
                         // Moved from storage
-
-                        if (!validateItemTake(click.getSlot(), slotItem)) {
-                            return true;
+                        if (validateItemTake(click.getSlot(), slotItem)) {
+                            moveToPlayerInventory(click, slotItem);
                         }
-
-                        // Check if there is actually space (more advanced checks can unfortunately not be supported right now)
-                        if (GuiView.of(click.getRawEvent().getView()).getBottomInventory().firstEmpty() == -1) {
-                            // No empty slot, cancel
-                            return true;
-                        }
-                        movedItem = null;
                     } else {
-                        // Moved to storage
-
-                        // Check if there is actually space (more advanced checks can unfortunately not be supported right now)
-                        if (view.getTopInventory().firstEmpty() == -1) {
-                            // No empty slot, cancel
-                            return true;
-                        }
-                        movedItem = event.getCurrentItem();
+                        // Moved to storage, can be spread over multiple storage elements
+                        gui.simulateMoveToGui(click);
                     }
-                    // Update GUI to avoid display glitches
-                    gui.runTask(() -> gui.draw(false));
-                    break;
+                    return true;
                 case HOTBAR_MOVE_AND_READD:
                 case HOTBAR_SWAP:
                     if (!validateItemTake(click.getSlot(), slotItem)) {
@@ -267,6 +263,60 @@ public class GuiStorageElement extends GuiElement {
         this.storage = storage;
     }
 
+    /**
+     * Simulate moving the item of a slot into the player's inventory like vanilla does it when
+     * shift-clicking it: first merge it with similar stacks and then put the rest into empty slots,
+     * both starting from the end of the hotbar.
+     * @param click The click that moves the item, its event needs to be cancelled
+     * @param slotItem The item in the clicked slot
+     */
+    private void moveToPlayerInventory(Click click, ItemStack slotItem) {
+        if (slotItem == null || slotItem.getType() == Material.AIR) {
+            return;
+        }
+        Inventory playerInventory = GuiView.of(click.getRawEvent().getView()).getBottomInventory();
+        ItemStack moving = slotItem.clone();
+        ItemStack[] newItems = new ItemStack[PLAYER_INVENTORY_MOVE_ORDER.length];
+        // Merge with similar stacks first
+        for (int i = 0; i < PLAYER_INVENTORY_MOVE_ORDER.length && moving.getAmount() > 0; i++) {
+            ItemStack item = playerInventory.getItem(PLAYER_INVENTORY_MOVE_ORDER[i]);
+            if (item != null && item.getAmount() < item.getMaxStackSize() && moving.isSimilar(item)) {
+                int added = Math.min(item.getMaxStackSize() - item.getAmount(), moving.getAmount());
+                newItems[i] = item.clone();
+                newItems[i].setAmount(item.getAmount() + added);
+                moving.setAmount(moving.getAmount() - added);
+            }
+        }
+        // Then put the rest into empty slots
+        for (int i = 0; i < PLAYER_INVENTORY_MOVE_ORDER.length && moving.getAmount() > 0; i++) {
+            ItemStack item = playerInventory.getItem(PLAYER_INVENTORY_MOVE_ORDER[i]);
+            if (newItems[i] == null && isEmptyItem(item)) {
+                int added = Math.min(moving.getMaxStackSize(), moving.getAmount());
+                newItems[i] = moving.clone();
+                newItems[i].setAmount(added);
+                moving.setAmount(moving.getAmount() - added);
+            }
+        }
+        if (moving.getAmount() == slotItem.getAmount()) {
+            // No space for anything
+            return;
+        }
+
+        ItemStack rest = moving.getAmount() > 0 ? moving : null;
+        Batch batch = startBatch();
+        // The item is taken out so only the take validator applies, which already passed
+        if (!batch.putStorageItem(click.getWhoClicked(), click.getSlot(), rest)) {
+            return;
+        }
+        for (int i = 0; i < newItems.length; i++) {
+            if (newItems[i] != null) {
+                playerInventory.setItem(PLAYER_INVENTORY_MOVE_ORDER[i], newItems[i]);
+            }
+        }
+        batch.commit();
+        gui.drawSlots(click.getWhoClicked(), click.getSlot());
+    }
+
     @Override
     public ItemStack getItem(HumanEntity who, int slot) {
         int index = getStorageSlot(who, slot);
@@ -343,20 +393,24 @@ public class GuiStorageElement extends GuiElement {
      * @return      <code>true</code> if the item was set; <code>false</code> if the slot was outside of this storage
      */
     public boolean setStorageItem(HumanEntity player, int slot, ItemStack item) {
-        int index = getStorageSlot(player, slot);
-        if (index == -1) {
-            return false;
-        }
-        if (!validateItemPlace(slot, item)) {
+        Batch batch = startBatch();
+        if (!batch.setStorageItem(player, slot, item)) {
             return false;
         }
-        storage.setItem(index, item);
-        if (applyStorage != null) {
-            applyStorage.run();
-        }
+        batch.commit();
         return true;
     }
 
+    /**
+     * Start a batch of storage writes. The writes are validated when they are added to the batch
+     * but only get written to the storage once {@link Batch#commit()} is called, which will
+     * then also only apply the storage once for all the writes.
+     * @return  A new, empty {@link Batch}
+     */
+    public Batch startBatch() {
+        return new Batch();
+    }
+
     /**
      * Get the runnable that applies the storage
      * @return The storage applying runnable; might be null
@@ -366,14 +420,33 @@ public class GuiStorageElement extends GuiElement {
     }
 
     /**
-     * Set what should be done to apply the storage.
+     * Set what should be done to apply the storage. Runs once per commit that changed the storage.
      * Not necessary if the storage is directly backed by a real inventory.
+     * Use {@link #setApplyChanges(Consumer)} if you only want to apply the changed slots.
      * @param applyStorage  How to apply the storage; can be null if nothing should be done
      */
     public void setApplyStorage(Runnable applyStorage) {
         this.applyStorage = applyStorage;
     }
 
+    /**
+     * Get the consumer that applies the changes made to the storage
+     * @return The consumer of the change {@link Journal}; might be null
+     */
+    public Consumer<Journal> getApplyChanges() {
+        return applyChanges;
+    }
+
+    /**
+     * Set what should be done with the changes to the storage. This gets called after {@link #getApplyStorage()}
+     * once per commit with a {@link Journal} that contains only the storage slots which actually changed.
+     * Useful if only the changed slots should be persisted instead of the whole inventory.
+     * @param applyChanges  How to apply the changes; can be null if nothing should be done
+     */
+    public void setApplyChanges(Consumer<Journal> applyChanges) {
+        this.applyChanges = applyChanges;
+    }
+
     /**
      * Get the item place validator
      * @return The item place validator
@@ -472,6 +545,189 @@ public class GuiStorageElement extends GuiElement {
         return takeValidator == null || takeValidator.apply(new ValidatorInfo(this, slot, item));
     }
 
+    private static boolean isEmptyItem(ItemStack item) {
+        return item == null || item.getType() == Material.AIR;
+    }
+
+    /**
+     * A batch of writes to the storage of this element that gets committed at once.
+     * Use {@link #startBatch()} to create one.
+     */
+    public class Batch {
+        private final Map<Integer, ItemStack> writes = new LinkedHashMap<>();
+        private ItemStack[] snapshot;
+
+        private Batch() {
+            takeSnapshot();
+        }
+
+        /**
+         * Remember the contents of the storage to find the writes that changed a slot on commit. The items are
+         * copied as the storage might return live items which callers can modify before they queue them.
+         */
+        private void takeSnapshot() {
+            snapshot = new ItemStack[storage.getSize()];
+            for (int i = 0; i < snapshot.length; i++) {
+                ItemStack item = storage.getItem(i);
+                snapshot[i] = isEmptyItem(item) ? null : item.clone();
+            }
+        }
+
+        /**
+         * Add a write of the item in the storage that corresponds to the InventoryGui slot to this batch.
+         * The item gets validated with the place validator immediately.
+         * @param player    The player using the GUI view
+         * @param slot      The slot in the GUI
+         * @param item      The {@link ItemStack} to set
+         * @return      <code>true</code> if the item will be set; <code>false</code> if the slot was outside of this storage
+         *              or the item isn't allowed in that slot
+         */
+        public boolean setStorageItem(HumanEntity player, int slot, ItemStack item) {
+            int index = getStorageSlot(player, slot);
+            if (index == -1) {
+                return false;
+            }
+            if (!validateItemPlace(slot, item)) {
+                return false;
+            }
+            writes.put(index, item);
+            return true;
+        }
+
+        /**
+         * Add a write to this batch without running the place validator
+         * @param player    The player using the GUI view
+         * @param slot      The slot in the GUI
+         * @param item      The {@link ItemStack} to set
+         * @return      <code>true</code> if the item will be set; <code>false</code> if the slot was outside of this storage
+         */
+        private boolean putStorageItem(HumanEntity player, int slot, ItemStack item) {
+            int index = getStorageSlot(player, slot);
+            if (index == -1) {
+                return false;
+            }
+            writes.put(index, item);
+            return true;
+        }
+
+        /**
+         * Check whether this batch contains any writes
+         * @return <code>true</code> if there is nothing to commit
+         */
+        public boolean isEmpty() {
+            return writes.isEmpty();
+        }
+
+        /**
+         * Write all items of this batch to the storage and apply the storage once if the batch had any writes.
+         * Writes which don't change the item that the storage had when the batch was started or last committed
+         * are left out of the journal.
+         * The batch will be empty afterwards and can be reused.
+         * @return  The {@link Journal} of the storage slots that were changed by this commit
+         */
+        public Journal commit() {
+            if (writes.isEmpty()) {
+                takeSnapshot();
+                return new Journal(GuiStorageElement.this, Collections.emptyMap());
+            }
+            Map<Integer, ItemStack> changes = new LinkedHashMap<>();
+            for (Map.Entry<Integer, ItemStack> write : writes.entrySet()) {
+                ItemStack item = write.getValue();
+                storage.setItem(write.getKey(), item);
+                ItemStack previous = write.getKey() < snapshot.length ? snapshot[write.getKey()] : null;
+                if (isEmptyItem(item) ? previous == null : item.equals(previous)) {
+                    continue;
+                }
+                changes.put(write.getKey(), isEmptyItem(item) ? null : item.clone());
+            }
+            writes.clear();
+            takeSnapshot();
+            Journal journal = new Journal(GuiStorageElement.this, changes);
+            if (gui != null) {
+                gui.invalidateRenderedPages();
+            }
+            if (applyStorage != null) {
+                applyStorage.run();
+            }
+            if (applyChanges != null && !journal.isEmpty()) {
+                applyChanges.accept(journal);
+            }
+            return journal;
+        }
+
+        /**
+         * Drop all writes of this batch without writing them to the storage
+         */
+        public void discard() {
+            writes.clear();
+            takeSnapshot();
+        }
+    }
+
+    /**
+     * The changes that a single commit made to the storage of an element
+     */
+    public static class Journal {
+        private final GuiStorageElement element;
+        private final Map<Integer, ItemStack> changes;
+
+        private Journal(GuiStorageElement element, Map<Integer, ItemStack> changes) {
+            this.element = element;
+            this.changes = Collections.unmodifiableMap(changes);
+        }
+
+        /**
+         * Get the element whose storage was changed
+         * @return The storage element
+         */
+        public GuiStorageElement getElement() {
+            return element;
+        }
+
+        /**
+         * Get all the changes of this commit in the order that they were made in
+         * @return An immutable map of the changed storage slot index to the new item (<code>null</code> if the slot is empty now)
+         */
+        public Map<Integer, ItemStack> getChanges() {
+            return changes;
+        }
+
+        /**
+         * Get the indexes of the slots in the storage inventory that were changed
+         * @return The changed storage slot indexes
+         */
+        public int[] getChangedSlots() {
+            return changes.keySet().stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        /**
+         * Get the new item of a changed storage slot
+         * @param index The index of the slot in the storage inventory
+         * @return      A copy of the new item or <code>null</code> if the slot is empty now or was not changed
+         */
+        public ItemStack getItem(int index) {
+            ItemStack item = changes.get(index);
+            return item != null ? item.clone() : null;
+        }
+
+        /**
+         * Check whether a storage slot was changed
+         * @param index The index of the slot in the storage inventory
+         * @return      <code>true</code> if the slot was changed by this commit
+         */
+        public boolean isChanged(int index) {
+            return changes.containsKey(index);
+        }
+
+        /**
+         * Check whether nothing was changed
+         * @return <code>true</code> if no slot was changed
+         */
+        public boolean isEmpty() {
+            return changes.isEmpty();
+        }
+    }
+
     public static class ValidatorInfo {
         private final GuiElement element;
         private final int slot;
@@ -0,0 +1,141 @@
+package de.themoep.inventorygui;
+
+/*
+ * Copyright 2017 Max Lee (https://github.com/Phoenix616)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * An observable value that elements can be bound to. Setting the value applies it to the bound elements and only
+ * draws their slots for the current viewers of the gui that each element belongs to.
+ * Elements are only weakly referenced so that they don't need to be unbound and a value without any
+ * bound elements doesn't do anything besides storing the value. The appliers are stored on the elements
+ * themselves so an applier that captures its element doesn't keep it alive.
+ * @param <T> The type of the value
+ */
+public class GuiValue<T> {
+    private volatile T value;
+    private final Set<GuiElement> bindings = Collections.newSetFromMap(new WeakHashMap<>());
+
+    /**
+     * Create a new value
+     * @param value The initial value
+     */
+    public GuiValue(T value) {
+        this.value = value;
+    }
+
+    /**
+     * Get the current value
+     * @return The value
+     */
+    public T get() {
+        return value;
+    }
+
+    /**
+     * Set the value and draw the slots of all bound elements for their viewers
+     * @param value The new value
+     */
+    public void set(T value) {
+        this.value = value;
+        List<GuiElement> bound;
+        synchronized (bindings) {
+            if (bindings.isEmpty()) {
+                return;
+            }
+            bound = new ArrayList<>(bindings);
+        }
+        for (GuiElement element : bound) {
+            BiConsumer<GuiElement, Object> applier = element.getValueApplier(this);
+            if (applier != null) {
+                applier.accept(element, value);
+            }
+            InventoryGui gui = element.getGui();
+            if (gui != null && gui.hasViewers()) {
+                gui.drawElement(element);
+            }
+        }
+    }
+
+    /**
+     * Bind an element to this value. Its slots get drawn whenever the value changes, this is useful
+     * for elements that read the value themselves when drawn like a {@link DynamicGuiElement}.
+     * @param element   The element to bind
+     * @param <E>       The type of the element
+     * @return          The bound element
+     */
+    public <E extends GuiElement> E bind(E element) {
+        return bind(element, null);
+    }
+
+    /**
+     * Bind an element to this value. The applier gets called with the current value directly
+     * and then every time that the value changes before the element's slots are drawn.
+     * E.g. <code>value.bind(element, (e, v) -&gt; e.setText("Price: " + v))</code>
+     * @param element   The element to bind
+     * @param applier   Applies the value to the element, e.g. by setting its text, item or state.
+     *                  Can be <code>null</code> if the element only needs to be drawn.
+     * @param <E>       The type of the element
+     * @return          The bound element
+     */
+    @SuppressWarnings("unchecked")
+    public <E extends GuiElement> E bind(E element, BiConsumer<? super E, ? super T> applier) {
+        Objects.requireNonNull(element);
+        if (applier != null) {
+            applier.accept(element, value);
+        }
+        element.setValueApplier(this, (BiConsumer<GuiElement, Object>) applier);
+        synchronized (bindings) {
+            bindings.add(element);
+        }
+        return element;
+    }
+
+    /**
+     * Unbind an element from this value
+     * @param element   The element to unbind
+     * @return          Whether the element was bound
+     */
+    public boolean unbind(GuiElement element) {
+        element.setValueApplier(this, null);
+        synchronized (bindings) {
+            return bindings.remove(element);
+        }
+    }
+
+    /**
+     * Check whether any elements are bound to this value
+     * @return Whether this value has bound elements
+     */
+    public boolean isBound() {
+        synchronized (bindings) {
+            return !bindings.isEmpty();
+        }
+    }
+}
@@ -30,6 +30,7 @@ public class GuiView {
     private static final MethodHandle COUNT_SLOTS = unreflect("countSlots");
     private static final MethodHandle SET_PROPERTY = unreflect("setProperty");
     private static final MethodHandle GET_TITLE = unreflect("getTitle");
+    private static final MethodHandle SET_TITLE = unreflect("setTitle", String.class);
 
     private static final WeakHashMap<InventoryView, GuiView> VIEWS = new WeakHashMap<>();
 
@@ -127,6 +128,33 @@ public class GuiView {
         return invoke(GET_TITLE);
     }
 
+    /**
+     * Check whether the server supports changing the title of an open view
+     * @return Whether {@link #setTitle(String)} is supported
+     */
+    public static boolean canSetTitle() {
+        return SET_TITLE != null;
+    }
+
+    /**
+     * Change the title of the view without reopening the inventory, if the server supports it
+     * @param title The new title
+     * @return      Whether the title could be set
+     */
+    public boolean setTitle(String title) {
+        if (SET_TITLE == null) {
+            return false;
+        }
+        try {
+            SET_TITLE.invoke(view, title);
+            return true;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new AssertionError(t);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     private <T> T invoke(MethodHandle method) {
         try {
@@ -149,6 +177,14 @@ public class GuiView {
         }
     }
 
+    private static MethodHandle unreflect(String name, Class<?>... parameterTypes) {
+        try {
+            return MethodHandles.lookup().unreflect(InventoryView.class.getMethod(name, parameterTypes));
+        } catch (Throwable ignored) {
+            return null;
+        }
+    }
+
     private static MethodHandle unreflect(String name) {
         for (Method method : InventoryView.class.getDeclaredMethods()) {
             if (method.getName().equals(name)) {
@@ -56,25 +56,36 @@ import org.bukkit.material.MaterialData;
 import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.logging.Level;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -82,21 +93,25 @@ import java.util.stream.Collectors;
  */
 public class InventoryGui implements Listener {
 
-    private final static int[] ROW_WIDTHS = {3, 5, 9};
-    private final static InventoryType[] INVENTORY_TYPES = {
-            InventoryType.DISPENSER, // 3*3
-            InventoryType.HOPPER, // 5*1
-            InventoryType.CHEST // 9*x
-    };
-
     private final static Map<String, InventoryGui> GUI_MAP = new ConcurrentHashMap<>();
     private final static Map<UUID, ArrayDeque<InventoryGui>> GUI_HISTORY = new ConcurrentHashMap<>();
 
-    private final static Map<String, Pattern> PATTERN_CACHE = new ConcurrentHashMap<>();
+    private final static Map<String, BiFunction<InventoryGui, HumanEntity, String>> GLOBAL_VARIABLES = new ConcurrentHashMap<>();
+    private final static Map<String, Set<GuiElement>> TAGGED_ELEMENTS = new ConcurrentHashMap<>();
+    // The page that is currently being rendered on this thread if it isn't the one the player is on
+    private final static ThreadLocal<RenderPage> RENDER_PAGE = new ThreadLocal<>();
+    private final static Map<Class<?>, List<Constructor<? extends UnregisterableListener>>> LISTENER_CONSTRUCTORS = new ConcurrentHashMap<>();
+
+    // Only goes back in the history, guis with this action can hand their window over to another gui
+    final static CloseAction DEFAULT_CLOSE_ACTION = close -> true;
+
+    // How many values deep placeholders inside of placeholder values get replaced
+    private final static int MAX_VARIABLE_DEPTH = 4;
 
-    private final static boolean FOLIA;
+    final static boolean FOLIA;
 
     private static String DEFAULT_CLICK_SOUND;
+    private static Executor DEFAULT_RENDER_EXECUTOR = null;
 
     private final Plugin plugin;
     private final GuiListener listener;
@@ -105,17 +120,29 @@ public class InventoryGui implements Listener {
     private BiConsumer<ItemMeta, List<String>> itemLoreSetter;
     private String title;
     private boolean titleUpdated = false;
-    private final char[] slots;
-    private int width;
+    private final GuiLayout layout;
     private final GuiElement[] elementSlots;
     private final Map<Character, GuiElement> elements = new ConcurrentHashMap<>();
-    private InventoryType inventoryType;
+    private final Map<String, Function<HumanEntity, String>> variables = new ConcurrentHashMap<>();
     private final Map<UUID, Inventory> inventories = new ConcurrentHashMap<>();
     private InventoryHolder owner;
     private final Map<UUID, Integer> pageNumbers = new ConcurrentHashMap<>();
     private final Map<UUID, Integer> pageAmounts = new ConcurrentHashMap<>();
+    private final Set<UUID> calculatedPageAmounts = ConcurrentHashMap.newKeySet();
+    private int prefetchPages = 0;
+    private final Map<UUID, Map<Integer, ItemStack[]>> renderedPages = new ConcurrentHashMap<>();
+    private GuiRenderScheduler renderScheduler = null;
+    private Executor renderExecutor = null;
+    private final AtomicLong renderGeneration = new AtomicLong();
+    private final Map<UUID, Long> pendingRenders = new ConcurrentHashMap<>();
+    private final Map<UUID, BitSet> pendingSlotResets = new ConcurrentHashMap<>();
+    private final Map<UUID, CollectIndex> collectIndices = new ConcurrentHashMap<>();
+    private GuiInventoryPool inventoryPool = null;
+    private long titleUpdateInterval = 50;
+    private final Map<UUID, Long> lastTitleUpdates = new ConcurrentHashMap<>();
+    private final Set<UUID> pendingTitleUpdates = ConcurrentHashMap.newKeySet();
     private GuiElement.Action outsideAction = click -> false;
-    private CloseAction closeAction = close -> true;
+    private CloseAction closeAction = DEFAULT_CLOSE_ACTION;
     private String clickSound = getDefaultClickSound();
     private boolean silent = false;
     
@@ -171,12 +198,10 @@ public class InventoryGui implements Listener {
      * @param owner             The holder that owns this gui to retrieve it with {@link #get(InventoryHolder)}.
      *                          Can be <code>null</code>.
      * @param title             The name of the GUI. This will be the title of the inventory.
-     * @param rows              How your rows are setup. Each element is getting assigned to a character.
-     *                          Empty/missing ones get filled with the Filler.
+     * @param layout            The compiled {@link GuiLayout} of the rows. Can be shared between multiple GUIs.
      * @param elements          The {@link GuiElement}s that the gui should have. You can also use {@link #addElement(GuiElement)} later.
-     * @throws IllegalArgumentException Thrown when the provided rows cannot be matched to an InventoryType
      */
-    public InventoryGui(Plugin plugin, InventoryCreator creator, BiConsumer<ItemMeta, String> itemNameSetter, BiConsumer<ItemMeta, List<String>> itemLoreSetter, InventoryHolder owner, String title, String[] rows, GuiElement... elements) {
+    public InventoryGui(Plugin plugin, InventoryCreator creator, BiConsumer<ItemMeta, String> itemNameSetter, BiConsumer<ItemMeta, List<String>> itemLoreSetter, InventoryHolder owner, String title, GuiLayout layout, GuiElement... elements) {
         this.plugin = plugin;
         this.creator = creator;
         this.itemNameSetter = itemNameSetter;
@@ -184,47 +209,42 @@ public class InventoryGui implements Listener {
         this.owner = owner;
         this.title = title;
         this.listener = new GuiListener();
+        this.layout = Objects.requireNonNull(layout);
+        this.elementSlots = new GuiElement[layout.getSize()];
 
-        width = ROW_WIDTHS[0];
-        for (String row : rows) {
-            if (row.length() > width) {
-                width = row.length();
-            }
-        }
-        for (int i = 0; i < ROW_WIDTHS.length && i < INVENTORY_TYPES.length; i++) {
-            if (width < ROW_WIDTHS[i]) {
-                width = ROW_WIDTHS[i];
-            }
-            if (width == ROW_WIDTHS[i]) {
-                inventoryType = INVENTORY_TYPES[i];
-                break;
-            }
-        }
-        if (inventoryType == null) {
-            throw new IllegalArgumentException("Could not match row setup to an inventory type!");
-        }
+        addElements(elements);
+    }
 
-        StringBuilder slotsBuilder = new StringBuilder();
-        for (String row : rows) {
-            if (row.length() < width) {
-                double side = (width - row.length()) / 2.0;
-                for (int i = 0; i < Math.floor(side); i++) {
-                    slotsBuilder.append(" ");
-                }
-                slotsBuilder.append(row);
-                for (int i = 0; i < Math.ceil(side); i++) {
-                    slotsBuilder.append(" ");
-                }
-            } else if (row.length() == width) {
-                slotsBuilder.append(row);
-            } else {
-                slotsBuilder.append(row, 0, width);
-            }
-        }
-        slots = slotsBuilder.toString().toCharArray();
-        elementSlots = new GuiElement[slots.length];
+    /**
+     * Create a new gui with a certain setup and some elements
+     * @param plugin            Your plugin
+     * @param creator           A creator for the backing inventory
+     * @param itemNameSetter    Setter for item display names
+     * @param itemLoreSetter    Setter for item lores
+     * @param owner             The holder that owns this gui to retrieve it with {@link #get(InventoryHolder)}.
+     *                          Can be <code>null</code>.
+     * @param title             The name of the GUI. This will be the title of the inventory.
+     * @param rows              How your rows are setup. Each element is getting assigned to a character.
+     *                          Empty/missing ones get filled with the Filler.
+     * @param elements          The {@link GuiElement}s that the gui should have. You can also use {@link #addElement(GuiElement)} later.
+     * @throws IllegalArgumentException Thrown when the provided rows cannot be matched to an InventoryType
+     */
+    public InventoryGui(Plugin plugin, InventoryCreator creator, BiConsumer<ItemMeta, String> itemNameSetter, BiConsumer<ItemMeta, List<String>> itemLoreSetter, InventoryHolder owner, String title, String[] rows, GuiElement... elements) {
+        this(plugin, creator, itemNameSetter, itemLoreSetter, owner, title, new GuiLayout(rows), elements);
+    }
 
-        addElements(elements);
+    /**
+     * Create a new gui with a certain setup and some elements
+     * @param plugin    Your plugin
+     * @param creator   A creator for the backing inventory
+     * @param owner     The holder that owns this gui to retrieve it with {@link #get(InventoryHolder)}.
+     *                  Can be <code>null</code>.
+     * @param title     The name of the GUI. This will be the title of the inventory.
+     * @param layout    The compiled {@link GuiLayout} of the rows. Can be shared between multiple GUIs.
+     * @param elements  The {@link GuiElement}s that the gui should have. You can also use {@link #addElement(GuiElement)} later.
+     */
+    public InventoryGui(Plugin plugin, InventoryCreator creator, InventoryHolder owner, String title, GuiLayout layout, GuiElement... elements) {
+        this(plugin, creator, ItemMeta::setDisplayName, ItemMeta::setLore, owner, title, layout, elements);
     }
 
     /**
@@ -255,10 +275,23 @@ public class InventoryGui implements Listener {
      * @throws IllegalArgumentException Thrown when the provided rows cannot be matched to an InventoryType
      */
     public InventoryGui(Plugin plugin, InventoryHolder owner, String title, String[] rows, GuiElement... elements) {
+        this(plugin, owner, title, new GuiLayout(rows), elements);
+    }
+
+    /**
+     * Create a new gui with a certain setup and some elements
+     * @param plugin    Your plugin
+     * @param owner     The holder that owns this gui to retrieve it with {@link #get(InventoryHolder)}.
+     *                  Can be <code>null</code>.
+     * @param title     The name of the GUI. This will be the title of the inventory.
+     * @param layout    The compiled {@link GuiLayout} of the rows. Can be shared between multiple GUIs.
+     * @param elements  The {@link GuiElement}s that the gui should have. You can also use {@link #addElement(GuiElement)} later.
+     */
+    public InventoryGui(Plugin plugin, InventoryHolder owner, String title, GuiLayout layout, GuiElement... elements) {
         this(plugin, new InventoryCreator(
-                (gui, who, type) -> plugin.getServer().createInventory(new Holder(gui), type, gui.replaceVars(who, gui.getTitle())),
-                (gui, who, size) -> plugin.getServer().createInventory(new Holder(gui), size, gui.replaceVars(who, gui.getTitle()))),
-                owner, title, rows, elements);
+                (gui, who, type) -> gui.createHolderInventory(who, type, type.getDefaultSize()),
+                (gui, who, size) -> gui.createHolderInventory(who, null, size)),
+                owner, title, layout, elements);
     }
 
     /**
@@ -274,6 +307,17 @@ public class InventoryGui implements Listener {
         this(plugin, null, title, rows, elements);
     }
 
+    /**
+     * Create a new gui without an owner from a compiled layout. Elements are optional.
+     * @param plugin    Your plugin
+     * @param title     The name of the GUI. This will be the title of the inventory.
+     * @param layout    The compiled {@link GuiLayout} of the rows. Can be shared between multiple GUIs.
+     * @param elements  The {@link GuiElement}s that the gui should have. You can also use {@link #addElement(GuiElement)} later.
+     */
+    public InventoryGui(Plugin plugin, String title, GuiLayout layout, GuiElement... elements) {
+        this(plugin, (InventoryHolder) null, title, layout, elements);
+    }
+
     /**
      * Create a new gui that has no owner with a certain setup and some elements
      * @param plugin    Your plugin
@@ -306,6 +350,7 @@ public class InventoryGui implements Listener {
         element.setSlots(new int[] {slot});
         element.setGui(this);
         elementSlots[slot] = element;
+        invalidatePageAmount();
     }
 
     /**
@@ -318,21 +363,12 @@ public class InventoryGui implements Listener {
         }
         elements.put(element.getSlotChar(), element);
         element.setGui(this);
-        int[] slots = getSlots(element.getSlotChar());
+        int[] slots = layout.getSlots(element.getSlotChar());
         element.setSlots(slots);
         for (int slot : slots) {
             elementSlots[slot] = element;
         }
-    }
-
-    private int[] getSlots(char slotChar) {
-        ArrayList<Integer> slotList = new ArrayList<>();
-        for (int i = 0; i < slots.length; i++) {
-            if (slots[i] == slotChar) {
-                slotList.add(i);
-            }
-        }
-        return slotList.stream().mapToInt(Integer::intValue).toArray();
+        invalidatePageAmount();
     }
 
     /**
@@ -447,6 +483,9 @@ public class InventoryGui implements Listener {
                 removed = true;
             }
         }
+        if (removed) {
+            invalidatePageAmount();
+        }
         return removed;
     }
 
@@ -474,6 +513,9 @@ public class InventoryGui implements Listener {
         }
         GuiElement element = elementSlots[slot];
         elementSlots[slot] = null;
+        if (element != null) {
+            invalidatePageAmount();
+        }
         return element;
     }
 
@@ -509,6 +551,10 @@ public class InventoryGui implements Listener {
      * @return The page number
      */
     public int getPageNumber(@NotNull HumanEntity player) {
+        RenderPage renderPage = RENDER_PAGE.get();
+        if (renderPage != null && renderPage.gui == this && renderPage.playerId.equals(player.getUniqueId())) {
+            return renderPage.pageNumber;
+        }
         return pageNumbers.getOrDefault(player.getUniqueId(), 0);
     }
 
@@ -532,7 +578,195 @@ public class InventoryGui implements Listener {
      */
     public void setPageNumber(HumanEntity player, int pageNumber) {
         setPageNumberInternal(player, pageNumber);
-        draw(player, false, false);
+        if (!drawRenderedPage(player)) {
+            draw(player, false, false);
+        }
+        prefetchAdjacentPages(player);
+    }
+
+    /**
+     * Get the amount of rendered pages that are kept per viewer to make page turns faster
+     * @return The amount of pages, <code>0</code> if prefetching is disabled
+     */
+    public int getPrefetchPages() {
+        return prefetchPages;
+    }
+
+    /**
+     * Set the amount of rendered pages that are kept per viewer. If this is above 0 then the pages
+     * next to the one that a player is on get rendered on the tick after the page was shown, so turning
+     * to them only needs to write the already prepared items. Redrawing the gui and changing elements
+     * discards the rendered pages again. Storage slots and elements with a state query are always
+     * rendered again when a prepared page is shown as they can change without the gui knowing about it.
+     * @param prefetchPages The amount of pages to keep, including the current one. <code>3</code> keeps
+     *                      the current as well as the next and the previous page. <code>0</code> disables it.
+     */
+    public void setPrefetchPages(int prefetchPages) {
+        this.prefetchPages = Math.max(prefetchPages, 0);
+        if (this.prefetchPages == 0) {
+            renderedPages.clear();
+        }
+    }
+
+    /**
+     * Get the executor that items get prepared on when drawing the gui for all viewers
+     * @return The executor or <code>null</code> if the items are prepared on the players' threads
+     */
+    public Executor getRenderExecutor() {
+        return renderExecutor;
+    }
+
+    /**
+     * Set an executor to prepare the items on when drawing the gui for all viewers with {@link #draw(boolean)}.
+     * Only applying the prepared items to the inventories will then happen on the players' threads.
+     * This also applies to the draws that a {@link GuiRenderScheduler} runs for this gui.
+     * Elements and their item setters must be safe to call from the executor's threads when using this!
+     * @param renderExecutor    The executor, {@link #getDefaultRenderExecutor()} or <code>null</code> to prepare
+     *                          the items on the players' threads
+     */
+    public void setRenderExecutor(Executor renderExecutor) {
+        this.renderExecutor = renderExecutor;
+    }
+
+    /**
+     * Get the default executor to prepare items on. This uses virtual threads if they are available
+     * and the common {@link ForkJoinPool} otherwise.
+     * @return The default render executor
+     */
+    public static synchronized Executor getDefaultRenderExecutor() {
+        if (DEFAULT_RENDER_EXECUTOR == null) {
+            try {
+                DEFAULT_RENDER_EXECUTOR = (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                DEFAULT_RENDER_EXECUTOR = ForkJoinPool.commonPool();
+            }
+        }
+        return DEFAULT_RENDER_EXECUTOR;
+    }
+
+    /**
+     * Get the pool that inventories of this gui are taken from and returned to
+     * @return The {@link GuiInventoryPool} or <code>null</code> if inventories aren't pooled
+     */
+    public GuiInventoryPool getInventoryPool() {
+        return inventoryPool;
+    }
+
+    /**
+     * Set a pool that inventories of this gui are taken from and returned to when they aren't used anymore.
+     * When a player is shown this gui while having a gui with the same inventory type, size and title open,
+     * then that window is taken over instead of opening a new one. This is not done if the open gui has a custom
+     * {@link CloseAction} as it would not run, the window gets closed normally then.
+     * Only inventories created by the default {@link InventoryCreator} are pooled.
+     * @param inventoryPool The {@link GuiInventoryPool} or <code>null</code> to not pool inventories
+     */
+    public void setInventoryPool(GuiInventoryPool inventoryPool) {
+        this.inventoryPool = inventoryPool;
+    }
+
+    /**
+     * Get the scheduler that draws of all viewers get queued in
+     * @return The {@link GuiRenderScheduler} or <code>null</code> if draws happen immediately
+     */
+    public GuiRenderScheduler getRenderScheduler() {
+        return renderScheduler;
+    }
+
+    /**
+     * Set a scheduler that spreads the draws triggered by {@link #draw(boolean)} over multiple ticks.
+     * The same scheduler can be shared between multiple guis so that they use the same budget.
+     * Draws for a single player are not affected by this.
+     * @param renderScheduler   The {@link GuiRenderScheduler} or <code>null</code> to draw immediately
+     */
+    public void setRenderScheduler(GuiRenderScheduler renderScheduler) {
+        this.renderScheduler = renderScheduler;
+    }
+
+    /**
+     * Discard the rendered pages of all players, e.g. because the content of a storage changed
+     */
+    void invalidateRenderedPages() {
+        renderedPages.clear();
+    }
+
+    /**
+     * Discard the rendered pages of a player
+     * @param player    The player to discard the rendered pages for
+     */
+    void invalidateRenderedPages(HumanEntity player) {
+        renderedPages.remove(player.getUniqueId());
+    }
+
+    private Map<Integer, ItemStack[]> getRenderedPages(HumanEntity player) {
+        return renderedPages.computeIfAbsent(player.getUniqueId(), id -> Collections.synchronizedMap(
+                new LinkedHashMap<Integer, ItemStack[]>(prefetchPages + 1, 1, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Integer, ItemStack[]> eldest) {
+                        return size() > prefetchPages;
+                    }
+                }));
+    }
+
+    /**
+     * Write the already rendered items of the page that the player is on into their inventory
+     * @param player    The player to draw the page for
+     * @return          <code>true</code> if the page was rendered and got drawn; <code>false</code> if not
+     */
+    private boolean drawRenderedPage(HumanEntity player) {
+        if (prefetchPages <= 0) {
+            return false;
+        }
+        Inventory inventory = getInventory(player);
+        if (inventory == null) {
+            return false;
+        }
+        updatePageAmount(player);
+        ItemStack[] items = getRenderedPages(player).get(getPageNumber(player));
+        if (items == null || items.length != inventory.getSize()) {
+            return false;
+        }
+        collectIndices.remove(player.getUniqueId());
+        for (int i = 0; i < items.length; i++) {
+            GuiElement element = getElement(i);
+            if (element == null) {
+                element = getFiller();
+            }
+            GuiElement resolved = resolveElement(element, player, i);
+            if (resolved instanceof GuiStorageElement
+                    || resolved instanceof GuiStateElement && ((GuiStateElement) resolved).hasStateQuery()) {
+                // These can change without invalidating the rendered pages
+                inventory.setItem(i, resolved.getItem(player, i));
+            } else {
+                inventory.setItem(i, items[i]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Render the pages next to the one a player is currently on on the next tick if prefetching is enabled
+     * @param player    The player to render the pages for
+     */
+    private void prefetchAdjacentPages(HumanEntity player) {
+        if (prefetchPages <= 1) {
+            return;
+        }
+        runTask(player, () -> {
+            Inventory inventory = getInventory(player);
+            if (inventory == null) {
+                return;
+            }
+            int pageNumber = getPageNumber(player);
+            Map<Integer, ItemStack[]> pages = getRenderedPages(player);
+            for (int page : new int[] {pageNumber + 1, pageNumber - 1}) {
+                if (page < 0 || page >= getPageAmount(player) || pages.containsKey(page)) {
+                    continue;
+                }
+                pages.put(page, renderItems(player, inventory.getSize(), page));
+                // Make sure the page the player is on stays the most recently used one
+                pages.get(pageNumber);
+            }
+        });
     }
 
     private void setPageNumberInternal(HumanEntity player, int pageNumber) {
@@ -557,6 +791,38 @@ public class InventoryGui implements Listener {
         pageAmounts.put(player.getUniqueId(), pageAmount);
     }
 
+    /**
+     * Make sure the page amount of a player is up to date. It only gets calculated again
+     * if something that affects it changed since the last calculation.
+     * @param player    The player to update the page amount for
+     */
+    private void updatePageAmount(HumanEntity player) {
+        if (calculatedPageAmounts.add(player.getUniqueId())) {
+            calculatePageAmount(player);
+        }
+        int pageAmount = getPageAmount(player);
+        if (getPageNumber(player) >= pageAmount) {
+            setPageNumberInternal(player, Math.min(0, pageAmount - 1));
+        }
+    }
+
+    /**
+     * Mark the page amounts of all players as outdated, e.g. because the size of a group changed
+     */
+    void invalidatePageAmount() {
+        calculatedPageAmounts.clear();
+        invalidateRenderedPages();
+    }
+
+    /**
+     * Mark the page amount of a player as outdated, e.g. because a dynamic element changed for them
+     * @param player    The player to invalidate the page amount for
+     */
+    void invalidatePageAmount(HumanEntity player) {
+        calculatedPageAmounts.remove(player.getUniqueId());
+        invalidateRenderedPages(player);
+    }
+
     private void calculatePageAmount(HumanEntity player) {
         int pageAmount = 0;
         for (GuiElement element : elements.values()) {
@@ -566,14 +832,11 @@ public class InventoryGui implements Listener {
             }
         }
         setPageAmount(player, pageAmount);
-        if (getPageNumber(player) >= pageAmount) {
-            setPageNumberInternal(player, Math.min(0, pageAmount - 1));
-        }
     }
 
     private int calculateElementSize(HumanEntity player, GuiElement element) {
         if (element instanceof GuiElementGroup) {
-            return ((GuiElementGroup) element).size();
+            return ((GuiElementGroup) element).size(player);
         } else if (element instanceof GuiStorageElement) {
             return ((GuiStorageElement) element).getStorage().getSize();
         } else if (element instanceof DynamicGuiElement) {
@@ -596,32 +859,44 @@ public class InventoryGui implements Listener {
      * @param checkOpen Whether or not it should check if this gui is already open
      */
     public void show(HumanEntity player, boolean checkOpen) {
-        // Draw the elements into an inventory, if the title was updated then also force-recreate the inventory if it exists
-        draw(player, true, titleUpdated);
-        if (titleUpdated || !checkOpen || !this.equals(getOpen(player))) {
-            InventoryType type = GuiView.of(player.getOpenInventory()).getType();
-            if (type != InventoryType.CRAFTING && type != InventoryType.CREATIVE) {
-                // If the player already has a gui open then we assume that the call was from that gui.
-                // In order to not close it in a InventoryClickEvent listener (which will lead to errors)
-                // we delay the opening for one tick to run after it finished processing the event
-                runTask(player, () -> {
-                    Inventory inventory = getInventory(player);
-                    if (inventory != null) {
-                        addHistory(player, this);
-                        player.openInventory(inventory);
+        boolean open = titleUpdated || !checkOpen || !this.equals(getOpen(player));
+        InventoryType type = open ? GuiView.of(player.getOpenInventory()).getType() : null;
+        boolean delayed = open && type != InventoryType.CRAFTING && type != InventoryType.CREATIVE;
+        // With a pool the window of another gui can be taken over if it has the same title, this happens in the task below
+        boolean adopt = delayed && inventoryPool != null && !titleUpdated && getInventory(player) == null;
+        if (!adopt) {
+            // Draw the elements into an inventory, if the title was updated then also force-recreate the inventory if it exists
+            draw(player, true, titleUpdated);
+        }
+        if (delayed) {
+            // If the player already has a gui open then we assume that the call was from that gui.
+            // In order to not close it in a InventoryClickEvent listener (which will lead to errors)
+            // we delay the opening for one tick to run after it finished processing the event
+            runTask(player, () -> {
+                if (adopt && getInventory(player) == null) {
+                    if (adoptOpenInventory(player)) {
+                        return;
                     }
-                });
-            } else {
+                    draw(player);
+                }
                 Inventory inventory = getInventory(player);
                 if (inventory != null) {
-                    clearHistory(player);
                     addHistory(player, this);
                     player.openInventory(inventory);
                 }
+            });
+        } else if (open) {
+            Inventory inventory = getInventory(player);
+            if (inventory != null) {
+                clearHistory(player);
+                addHistory(player, this);
+                player.openInventory(inventory);
             }
         }
         // Reset the field that indicates that the title changed
         titleUpdated = false;
+        // Animations are paused while no animated gui has viewers
+        GuiAnimationClock.resume(plugin);
     }
 
     /**
@@ -652,12 +927,39 @@ public class InventoryGui implements Listener {
      * @param updateDynamic Update dynamic elements
      */
     public void draw(boolean updateDynamic) {
+        if (updateDynamic) {
+            // Player-independent elements only need to be queried once for all viewers
+            updateGlobalElements(elements.values());
+        }
+        List<Player> viewers = new ArrayList<>();
         for (UUID playerId : inventories.keySet()) {
             Player player = plugin.getServer().getPlayer(playerId);
             if (player != null) {
-                runTaskOrNow(player, () -> draw(player, updateDynamic));
+                if (renderScheduler != null) {
+                    renderScheduler.queue(this, player, updateDynamic);
+                } else {
+                    viewers.add(player);
+                }
             }
         }
+        runTaskOrNow(viewers, player -> drawViewer(player, updateDynamic));
+    }
+
+    /**
+     * Draw the gui for one of the viewers of a broadcast draw. Uses the render executor if one is set.
+     * Does nothing if the player doesn't view the gui anymore.
+     * @param player        The viewer to draw the GUI for
+     * @param updateDynamic Update dynamic elements, global ones are expected to be updated already
+     */
+    void drawViewer(Player player, boolean updateDynamic) {
+        if (getInventory(player) == null) {
+            return;
+        }
+        if (renderExecutor != null) {
+            drawAsync(player, updateDynamic);
+        } else {
+            draw(player, updateDynamic, false);
+        }
     }
 
     /**
@@ -687,28 +989,491 @@ public class InventoryGui implements Listener {
         if (updateDynamic) {
             updateElements(who, elements.values());
         }
-        calculatePageAmount(who);
+        updatePageAmount(who);
         Inventory inventory = getInventory(who);
         if (inventory == null || recreateInventory) {
             build();
-            if (slots.length != inventoryType.getDefaultSize()) {
-                inventory = getInventoryCreator().getSizeCreator().create(this, who, slots.length);
+            if (layout.getSize() != layout.getInventoryType().getDefaultSize()) {
+                inventory = getInventoryCreator().getSizeCreator().create(this, who, layout.getSize());
             } else {
-                inventory = getInventoryCreator().getTypeCreator().create(this, who, inventoryType);
+                inventory = getInventoryCreator().getTypeCreator().create(this, who, layout.getInventoryType());
             }
             inventories.put(who != null ? who.getUniqueId() : null, inventory);
+        }
+        if (who != null) {
+            // Any render that is still being prepared is outdated now
+            pendingRenders.remove(who.getUniqueId());
+        }
+        applyItems(who, inventory, renderItems(who, inventory.getSize()));
+    }
+
+    /**
+     * Draw the elements in the inventory in two phases. The items are prepared on the {@link #getRenderExecutor()}
+     * and then applied to the inventory on the player's thread. Elements are resolved on the player's thread before
+     * so that dynamic queries don't run on the executor and storage slots are read on the player's thread afterwards.
+     * @param player        For who to draw the GUI
+     * @param updateDynamic Update dynamic elements
+     */
+    private void drawAsync(Player player, boolean updateDynamic) {
+        Inventory inventory = getInventory(player);
+        if (inventory == null) {
+            // The player closed the gui in the meantime
+            return;
+        }
+        Executor executor = renderExecutor;
+        if (executor == null) {
+            draw(player, updateDynamic, false);
+            return;
+        }
+        if (updateDynamic) {
+            updateElements(player, elements.values());
+        }
+        updatePageAmount(player);
+        int pageNumber = getPageNumber(player);
+        GuiElement[] resolved = new GuiElement[inventory.getSize()];
+        for (int i = 0; i < resolved.length; i++) {
+            GuiElement element = getElement(i);
+            if (element == null) {
+                element = getFiller();
+            }
+            resolved[i] = resolveElement(element, player, i);
+        }
+        long generation = renderGeneration.incrementAndGet();
+        pendingRenders.put(player.getUniqueId(), generation);
+        CompletableFuture.supplyAsync(() -> {
+            ItemStack[] items = new ItemStack[resolved.length];
+            Map<GuiElement, ItemStack> invariantItems = new IdentityHashMap<>();
+            for (int i = 0; i < resolved.length; i++) {
+                if (resolved[i] != null && !(resolved[i] instanceof GuiStorageElement)) {
+                    items[i] = renderItem(resolved[i], player, i, invariantItems);
+                }
+            }
+            return items;
+        }, executor).whenComplete((items, throwable) -> runTaskOrNow(player, () -> {
+            if (!pendingRenders.remove(player.getUniqueId(), generation)) {
+                // A newer render happened in the meantime
+                return;
+            }
+            if (throwable != null) {
+                plugin.getLogger().log(Level.SEVERE, "Exception while preparing items of GUI " + getTitle()
+                        + " for " + player.getName() + ", drawing it directly instead", throwable);
+                draw(player, false);
+                return;
+            }
+            if (getInventory(player) != inventory || getPageNumber(player) != pageNumber) {
+                draw(player, false);
+                return;
+            }
+            for (int i = 0; i < resolved.length; i++) {
+                if (resolved[i] instanceof GuiStorageElement) {
+                    items[i] = resolved[i].getItem(player, i);
+                }
+            }
+            applyItems(player, inventory, items);
+        }));
+    }
+
+    /**
+     * Set rendered items in an inventory and remember them for prefetching
+     * @param who       For who the items were rendered
+     * @param inventory The inventory to set the items in
+     * @param items     The rendered items
+     */
+    private void applyItems(HumanEntity who, Inventory inventory, ItemStack[] items) {
+        if (who != null) {
+            collectIndices.remove(who.getUniqueId());
+        }
+        for (int i = 0; i < items.length; i++) {
+            inventory.setItem(i, items[i]);
+        }
+        if (prefetchPages > 0) {
+            // Something might have changed, only the page that we just rendered is up to date
+            Map<Integer, ItemStack[]> pages = getRenderedPages(who);
+            pages.clear();
+            pages.put(getPageNumber(who), items);
+        }
+    }
+
+    /**
+     * Resolve an element to the element that actually provides the item, e.g. through multiple groups and dynamic elements
+     * @param element   The element to resolve
+     * @param who       The player to resolve the element for
+     * @param slot      The slot to resolve the element for
+     * @return          The resolved element or <code>null</code> if there is none
+     */
+    private static GuiElement resolveElement(GuiElement element, HumanEntity who, int slot) {
+        while (element != null) {
+            GuiElement effective = element.getEffectiveElement(who, slot);
+            if (effective == element) {
+                break;
+            }
+            element = effective;
+        }
+        return element;
+    }
+
+    /**
+     * Draw only the slots of a certain element for all viewers. Updates any dynamic elements.
+     * @param element   The element to draw
+     */
+    public void drawElement(GuiElement element) {
+        drawElement(element, true);
+    }
+
+    /**
+     * Draw only the slots of a certain element for all viewers. This can be used to refresh a single element
+     * without redrawing the whole gui.
+     * @param element       The element to draw
+     * @param updateDynamic Update the element if it is dynamic
+     */
+    public void drawElement(GuiElement element, boolean updateDynamic) {
+        drawElements(Collections.singletonList(element), updateDynamic);
+    }
+
+    /**
+     * Draw only the slots of certain elements for all viewers. Each slot only gets drawn once per viewer.
+     * @param elements      The elements to draw
+     * @param updateDynamic Update the elements if they are dynamic
+     */
+    private void drawElements(Collection<GuiElement> elements, boolean updateDynamic) {
+        List<Player> viewers = new ArrayList<>();
+        for (UUID playerId : inventories.keySet()) {
+            Player player = plugin.getServer().getPlayer(playerId);
+            if (player != null) {
+                viewers.add(player);
+            }
+        }
+        if (viewers.isEmpty()) {
+            return;
+        }
+        int[] slots;
+        if (elements.size() == 1) {
+            slots = elements.iterator().next().getSlots();
         } else {
-            inventory.clear();
+            BitSet slotSet = new BitSet();
+            for (GuiElement element : elements) {
+                for (int slot : element.getSlots()) {
+                    slotSet.set(slot);
+                }
+            }
+            slots = slotSet.stream().toArray();
+        }
+        if (updateDynamic) {
+            updateGlobalElements(elements);
         }
-        for (int i = 0; i < inventory.getSize(); i++) {
+        runTaskOrNow(viewers, player -> {
+            if (updateDynamic) {
+                updateElements(player, elements);
+            }
+            drawSlots(player, slots);
+        });
+    }
+
+    /**
+     * Check whether this gui currently has any viewers
+     * @return Whether the gui is shown to anyone
+     */
+    public boolean hasViewers() {
+        return !inventories.isEmpty();
+    }
+
+    /**
+     * Render the items of all slots for a player on the page that they are currently on
+     * @param who   For who to render the items
+     * @param size  The amount of slots to render
+     * @return      The rendered items, empty slots are <code>null</code>
+     */
+    private ItemStack[] renderItems(HumanEntity who, int size) {
+        ItemStack[] items = new ItemStack[size];
+        Map<GuiElement, ItemStack> invariantItems = new IdentityHashMap<>();
+        for (int i = 0; i < size; i++) {
             GuiElement element = getElement(i);
             if (element == null) {
                 element = getFiller();
             }
             if (element != null) {
-                inventory.setItem(i, element.getItem(who, i));
+                items[i] = renderItem(element, who, i, invariantItems);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Render the items of all slots for a player on a certain page without changing the page that the player is on.
+     * Only the rendering on the current thread sees the page, e.g. for elements and placeholders that query it.
+     * @param who           For who to render the items
+     * @param size          The amount of slots to render
+     * @param pageNumber    The page to render
+     * @return              The rendered items, empty slots are <code>null</code>
+     */
+    private ItemStack[] renderItems(HumanEntity who, int size, int pageNumber) {
+        RenderPage previous = RENDER_PAGE.get();
+        RENDER_PAGE.set(new RenderPage(this, who.getUniqueId(), pageNumber));
+        try {
+            return renderItems(who, size);
+        } finally {
+            if (previous != null) {
+                RENDER_PAGE.set(previous);
+            } else {
+                RENDER_PAGE.remove();
+            }
+        }
+    }
+
+    private static class RenderPage {
+        private final InventoryGui gui;
+        private final UUID playerId;
+        private final int pageNumber;
+
+        private RenderPage(InventoryGui gui, UUID playerId, int pageNumber) {
+            this.gui = gui;
+            this.playerId = playerId;
+            this.pageNumber = pageNumber;
+        }
+    }
+
+    /**
+     * Render the item of an element in a slot. The items of {@link GuiElement#isSlotInvariant() slot-invariant}
+     * elements are only rendered once and then reused from the cache of the render pass.
+     * The same item instance might therefore be returned for multiple slots.
+     * @param element           The element to render
+     * @param who               For who to render the item
+     * @param slot              The slot to render the item for
+     * @param invariantItems    The items of the slot-invariant elements rendered in this pass
+     * @return                  The rendered item
+     */
+    private static ItemStack renderItem(GuiElement element, HumanEntity who, int slot, Map<GuiElement, ItemStack> invariantItems) {
+        if (element.isSlotInvariant()) {
+            return invariantItems.computeIfAbsent(element, e -> e.getItem(who, slot));
+        }
+        return element.getItem(who, slot);
+    }
+
+    /**
+     * Draw only certain slots of the inventory of a player. This can be used to refresh slots whose content
+     * changed without redrawing the whole gui. Does not update dynamic elements.
+     * @param who   For who to draw the slots
+     * @param slots The slots to draw
+     */
+    public void drawSlots(HumanEntity who, int... slots) {
+        Inventory inventory = getInventory(who);
+        if (inventory == null) {
+            return;
+        }
+        invalidateRenderedPages(who);
+        markCollectIndex(who, slots);
+        Map<GuiElement, ItemStack> invariantItems = new IdentityHashMap<>();
+        for (int slot : slots) {
+            if (slot < 0 || slot >= inventory.getSize()) {
+                continue;
+            }
+            GuiElement element = getElement(slot);
+            if (element == null) {
+                element = getFiller();
+            }
+            inventory.setItem(slot, element != null ? renderItem(element, who, slot, invariantItems) : null);
+        }
+    }
+
+    /**
+     * Distribute the items of a drag over multiple slots. All storage slots are validated and written in a single
+     * batch per storage element. Items that were dragged into slots that don't accept them are added back to the
+     * cursor, the cursor can never end up with more than it had before the drag so no items have to be dropped.
+     * The resulting items of the event can't be changed so the rejected slots get reset on the next tick.
+     * @param event     The drag event
+     * @param inventory The inventory of the player that dragged
+     */
+    private void distributeDrag(InventoryDragEvent event, Inventory inventory) {
+        ItemStack[] newItems = new ItemStack[inventory.getSize()];
+        BitSet draggedSlots = new BitSet(newItems.length);
+        for (Map.Entry<Integer, ItemStack> items : event.getNewItems().entrySet()) {
+            int slot = items.getKey();
+            if (slot < newItems.length) {
+                newItems[slot] = items.getValue();
+                draggedSlots.set(slot);
+            }
+        }
+
+        int rejected = 0;
+        Map<GuiStorageElement, GuiStorageElement.Batch> batches = new LinkedHashMap<>();
+        for (int slot = draggedSlots.nextSetBit(0); slot >= 0; slot = draggedSlots.nextSetBit(slot + 1)) {
+            GuiElement element = getElement(slot);
+            if (!(element instanceof GuiStorageElement)
+                    || !batches.computeIfAbsent((GuiStorageElement) element, GuiStorageElement::startBatch)
+                            .setStorageItem(event.getWhoClicked(), slot, newItems[slot])) {
+                rejected += getRejectedAmount(newItems[slot], event.getInventory().getItem(slot));
+                queueSlotReset(event.getWhoClicked(), slot);
+            }
+        }
+        for (GuiStorageElement.Batch batch : batches.values()) {
+            batch.commit();
+        }
+
+        if (rejected > 0) {
+            ItemStack cursor = event.getOldCursor().clone();
+            cursor.setAmount(getDragCursorAmount(event.getOldCursor(), event.getCursor(), rejected));
+            event.setCursor(cursor);
+        }
+    }
+
+    /**
+     * Get the amount of items that a drag put into a slot which didn't accept them
+     * @param newItem   The item that the drag resulted in for that slot
+     * @param slotItem  The item that was in the slot before the drag; can be <code>null</code>
+     * @return          The amount of items that have to go back to the cursor
+     */
+    static int getRejectedAmount(ItemStack newItem, ItemStack slotItem) {
+        if (newItem.isSimilar(slotItem)) {
+            return newItem.getAmount() - slotItem.getAmount();
+        }
+        return newItem.getAmount();
+    }
+
+    /**
+     * Get the amount that the cursor has after a drag in which some slots rejected their items.
+     * This never exceeds the amount of the cursor before the drag.
+     * @param oldCursor The cursor before the drag
+     * @param cursor    The cursor that the drag resulted in; can be <code>null</code>
+     * @param rejected  The amount of items that were rejected by the slots
+     * @return          The new amount of the cursor
+     */
+    static int getDragCursorAmount(ItemStack oldCursor, ItemStack cursor, int rejected) {
+        int remaining = oldCursor.isSimilar(cursor) ? cursor.getAmount() : 0;
+        return Math.min(remaining + rejected, oldCursor.getAmount());
+    }
+
+    /**
+     * Create an inventory held by a {@link Holder} or take one from the {@link #getInventoryPool()}.
+     * This is used by the default {@link InventoryCreator}.
+     * @param who   The player to create the inventory for
+     * @param type  The type of the inventory; <code>null</code> to create it by its size
+     * @param size  The size of the inventory
+     * @return      The inventory
+     */
+    private Inventory createHolderInventory(HumanEntity who, InventoryType type, int size) {
+        String title = replaceVars(who, getTitle());
+        if (inventoryPool != null) {
+            Inventory pooled = inventoryPool.acquire(this, type != null ? type : InventoryType.CHEST, size, title);
+            if (pooled != null) {
+                return pooled;
+            }
+        }
+        Holder holder = new Holder(this, title);
+        if (type != null) {
+            return plugin.getServer().createInventory(holder, type, title);
+        }
+        return plugin.getServer().createInventory(holder, size, title);
+    }
+
+    /**
+     * Remove all the state that this gui has for a player that doesn't view it anymore
+     * @param player    The player
+     */
+    private void removeViewer(HumanEntity player) {
+        UUID playerId = player.getUniqueId();
+        inventories.remove(playerId);
+        pageAmounts.remove(playerId);
+        calculatedPageAmounts.remove(playerId);
+        renderedPages.remove(playerId);
+        pendingRenders.remove(playerId);
+        pendingSlotResets.remove(playerId);
+        collectIndices.remove(playerId);
+        lastTitleUpdates.remove(playerId);
+        pendingTitleUpdates.remove(playerId);
+        pageNumbers.remove(playerId);
+        if (renderScheduler != null) {
+            renderScheduler.remove(this, playerId);
+        }
+        for (GuiElement element : getElements()) {
+            if (element instanceof DynamicGuiElement) {
+                ((DynamicGuiElement) element).removeCachedElement(player);
+            } else if (element instanceof GuiElementGroup) {
+                ((GuiElementGroup) element).removeView(player);
+            }
+        }
+    }
+
+    /**
+     * Take over the window that a player has open from another gui instead of opening a new one. This is only possible
+     * if the open inventory was created by the default creator with the same type, size and title that this gui would use.
+     * @param player    The player
+     * @return          Whether the window was taken over
+     */
+    private boolean adoptOpenInventory(HumanEntity player) {
+        Inventory open = GuiView.of(player.getOpenInventory()).getTopInventory();
+        if (!(open.getHolder() instanceof Holder) || open.getViewers().size() != 1) {
+            return false;
+        }
+        Holder holder = (Holder) open.getHolder();
+        InventoryGui previous = holder.getGui();
+        if (previous == null || previous == this || previous.getInventory(player) != open || holder.getTitle() == null) {
+            return false;
+        }
+        if (previous.closeAction != null && previous.closeAction != DEFAULT_CLOSE_ACTION) {
+            // The previous gui wouldn't get a close event, it needs to be closed normally so that its action runs
+            return false;
+        }
+        boolean bySize = layout.getSize() != layout.getInventoryType().getDefaultSize();
+        if (open.getSize() != layout.getSize() || open.getType() != (bySize ? InventoryType.CHEST : layout.getInventoryType())) {
+            return false;
+        }
+        // The title of the open window might have been changed in-place so the creation title might not be the one shown
+        String shownTitle = GuiView.canSetTitle() ? GuiView.of(player.getOpenInventory()).getTitle() : holder.getTitle();
+        if (!replaceVars(player, getTitle()).equals(shownTitle)) {
+            return false;
+        }
+        // The previous gui won't get a close event for this player anymore
+        if (previous.inventories.size() <= 1) {
+            previous.inventories.remove(player.getUniqueId());
+            previous.destroy(false);
+        } else {
+            previous.removeViewer(player);
+        }
+        holder.setGui(this);
+        build();
+        inventories.put(player.getUniqueId(), open);
+        addHistory(player, this);
+        draw(player);
+        return true;
+    }
+
+    /**
+     * Redraw a slot for a player on the next tick, e.g. to revert changes that the client made which can't be cancelled.
+     * All slots that get queued for a player in the same tick are drawn together in a single task.
+     * @param who   The player to redraw the slot for
+     * @param slot  The slot to redraw
+     */
+    void queueSlotReset(HumanEntity who, int slot) {
+        boolean[] schedule = {false};
+        pendingSlotResets.compute(who.getUniqueId(), (id, slots) -> {
+            if (slots == null) {
+                slots = new BitSet(layout.getSize());
+                schedule[0] = true;
             }
+            slots.set(slot);
+            return slots;
+        });
+        if (schedule[0]) {
+            runTask(who, () -> {
+                BitSet slots = pendingSlotResets.remove(who.getUniqueId());
+                if (slots != null) {
+                    drawSlots(who, slots.stream().toArray());
+                }
+            });
+        }
+    }
+
+    /**
+     * Resend the clicked slot and the cursor of a cancelled click to the client on the next tick
+     * after the server reverted the click, instead of updating the whole inventory
+     * @param who   The player who clicked
+     * @param slot  The clicked slot in the gui, negative if the click was outside of it
+     */
+    private void resyncClick(HumanEntity who, int slot) {
+        if (slot >= 0 && slot < layout.getSize()) {
+            queueSlotReset(who, slot);
         }
+        runTask(who, () -> who.setItemOnCursor(who.getItemOnCursor()));
     }
 
     /**
@@ -724,6 +1489,20 @@ public class InventoryGui implements Listener {
         }
     }
 
+    /**
+     * Schedule a task on a {@link HumanEntity}/main thread to run after a delay
+     * @param entity the human entity to schedule a task on
+     * @param task the task to be run
+     * @param delay the delay in ticks
+     */
+    protected void runTaskLater(HumanEntity entity, Runnable task, long delay) {
+        if (FOLIA) {
+            entity.getScheduler().runDelayed(plugin, st -> task.run(), null, delay);
+        } else {
+            plugin.getServer().getScheduler().runTaskLater(plugin, task, delay);
+        }
+    }
+
     /**
      * Schedule a task on the global region/main thread to run on the next tick
      * @param task the task to be run
@@ -758,6 +1537,61 @@ public class InventoryGui implements Listener {
         }
     }
 
+    /**
+     * Run a task for multiple players on their threads. Players whose thread is the current one get handled immediately,
+     * the others get handled on the next tick. On Folia only one task gets scheduled per region: it runs on the
+     * scheduler of one of the players and handles all players owned by the same region, the rest is dispatched again.
+     * @param players   The players to run the task for
+     * @param task      The task to run for each player
+     */
+    protected void runTaskOrNow(Collection<? extends Player> players, Consumer<Player> task) {
+        if (players.isEmpty()) {
+            return;
+        }
+        if (FOLIA) {
+            runRegionTask(new ArrayList<>(players), task);
+        } else if (plugin.getServer().isPrimaryThread()) {
+            players.forEach(task);
+        } else {
+            List<Player> copy = new ArrayList<>(players);
+            plugin.getServer().getScheduler().runTask(plugin, () -> copy.forEach(task));
+        }
+    }
+
+    /**
+     * Run a task for the players owned by the region of the first player on that region's thread
+     * and dispatch the remaining players to their regions afterwards
+     * @param players   The players to run the task for, must not be empty
+     * @param task      The task to run for each player
+     */
+    private void runRegionTask(List<Player> players, Consumer<Player> task) {
+        Player representative = players.get(0);
+        Runnable regionTask = () -> {
+            List<Player> others = new ArrayList<>();
+            for (Player player : players) {
+                if (plugin.getServer().isOwnedByCurrentRegion(player)) {
+                    task.accept(player);
+                } else {
+                    others.add(player);
+                }
+            }
+            if (!others.isEmpty()) {
+                runRegionTask(others, task);
+            }
+        };
+        if (plugin.getServer().isOwnedByCurrentRegion(representative)) {
+            regionTask.run();
+        } else {
+            representative.getScheduler().run(plugin, st -> regionTask.run(), () -> {
+                // The representative left, let another player take over
+                List<Player> others = players.subList(1, players.size());
+                if (!others.isEmpty()) {
+                    runRegionTask(new ArrayList<>(others), task);
+                }
+            });
+        }
+    }
+
     /**
      * Update all dynamic elements in a collection of elements.
      * @param who       The player to update the elements for
@@ -773,6 +1607,20 @@ public class InventoryGui implements Listener {
         }
     }
 
+    /**
+     * Query all global dynamic elements in a collection of elements once for all viewers
+     * @param elements  The elements to update
+     */
+    static void updateGlobalElements(Collection<GuiElement> elements) {
+        for (GuiElement element : elements) {
+            if (element instanceof DynamicGuiElement) {
+                ((DynamicGuiElement) element).updateGlobal();
+            } else if (element instanceof GuiElementGroup) {
+                updateGlobalElements(((GuiElementGroup) element).getElements());
+            }
+        }
+    }
+
     /**
      * Closes the GUI for everyone viewing it
      */
@@ -825,10 +1673,24 @@ public class InventoryGui implements Listener {
         }
         for (Inventory inventory : inventories.values()) {
             inventory.clear();
+            if (inventoryPool != null) {
+                inventoryPool.release(inventory);
+            }
         }
         inventories.clear();
         pageNumbers.clear();
         pageAmounts.clear();
+        calculatedPageAmounts.clear();
+        renderedPages.clear();
+        pendingRenders.clear();
+        pendingSlotResets.clear();
+        collectIndices.clear();
+        lastTitleUpdates.clear();
+        pendingTitleUpdates.clear();
+        if (renderScheduler != null) {
+            renderScheduler.remove(this);
+        }
+        GuiAnimationClock.unregister(this);
         listener.unregisterListeners();
         removeFromMap();
     }
@@ -1131,12 +1993,94 @@ public class InventoryGui implements Listener {
     }
 
     /**
-     * Set the title of the gui
+     * Set the title of the gui. If the server supports it then the title is changed in the open windows of all viewers,
+     * otherwise the inventories get recreated the next time the gui is shown.
      * @param title The {@link String} that should be the title of the gui
      */
     public void setTitle(String title) {
         this.title = title;
-        this.titleUpdated = true;
+        if (!GuiView.canSetTitle()) {
+            // The inventories need to be recreated on the next show
+            this.titleUpdated = true;
+            return;
+        }
+        for (UUID playerId : inventories.keySet()) {
+            Player player = plugin.getServer().getPlayer(playerId);
+            if (player != null) {
+                updateTitle(player);
+            }
+        }
+    }
+
+    /**
+     * Update the title of the open window of a player. Updates are limited to one per {@link #getTitleUpdateInterval()},
+     * changes within that time are combined into a single update after it passed.
+     * @param player    The player to update the title for
+     */
+    private void updateTitle(Player player) {
+        UUID playerId = player.getUniqueId();
+        long now = System.currentTimeMillis();
+        Long last = lastTitleUpdates.get(playerId);
+        if (last == null || now - last >= titleUpdateInterval) {
+            lastTitleUpdates.put(playerId, now);
+            runTaskOrNow(player, () -> applyTitle(player));
+        } else if (pendingTitleUpdates.add(playerId)) {
+            long delay = Math.max(1, (titleUpdateInterval - (now - last) + 49) / 50);
+            runTaskLater(player, () -> {
+                if (pendingTitleUpdates.remove(playerId)) {
+                    updateTitle(player);
+                }
+            }, delay);
+        }
+    }
+
+    /**
+     * Set the current title in the open window of a player. If the server can't change the title of the open view
+     * then the inventory is recreated and reopened on the next tick.
+     * @param player    The player to set the title for
+     */
+    private void applyTitle(Player player) {
+        Inventory inventory = getInventory(player);
+        if (inventory == null) {
+            return;
+        }
+        GuiView view = GuiView.of(player.getOpenInventory());
+        if (view.getTopInventory() != inventory) {
+            return;
+        }
+        String newTitle = replaceVars(player, title);
+        try {
+            if (newTitle.equals(view.getTitle()) || view.setTitle(newTitle)) {
+                return;
+            }
+        } catch (Throwable t) {
+            plugin.getLogger().log(Level.WARNING, "Could not update title of GUI " + newTitle + " for " + player.getName()
+                    + ", reopening it instead", t);
+        }
+        // Don't reopen the inventory inside of a click event
+        runTask(player, () -> {
+            if (getInventory(player) == inventory) {
+                draw(player, false, true);
+                player.openInventory(getInventory(player));
+            }
+        });
+    }
+
+    /**
+     * Get the minimum time between two title updates for the same player
+     * @return The interval in milliseconds
+     */
+    public long getTitleUpdateInterval() {
+        return titleUpdateInterval;
+    }
+
+    /**
+     * Set the minimum time between two title updates for the same player. Title changes that happen faster
+     * are combined into one update. Players might not see the changes as smooth with low values.
+     * @param titleUpdateInterval   The interval in milliseconds
+     */
+    public void setTitleUpdateInterval(long titleUpdateInterval) {
+        this.titleUpdateInterval = Math.max(0, titleUpdateInterval);
     }
 
     /**
@@ -1166,7 +2110,7 @@ public class InventoryGui implements Listener {
      * @param who The player, if null it will try to return the inventory created first or null if none was created
      * @return The GUI's generated inventory, null if none was found
      */
-    private Inventory getInventory(HumanEntity who) {
+    Inventory getInventory(HumanEntity who) {
         return who != null ? inventories.get(who.getUniqueId()) : (inventories.isEmpty() ? null : inventories.values().iterator().next());
     }
 
@@ -1175,7 +2119,15 @@ public class InventoryGui implements Listener {
      * @return The width of the GUI
      */
     int getWidth() {
-        return width;
+        return layout.getWidth();
+    }
+
+    /**
+     * Get the compiled layout of this GUI
+     * @return The {@link GuiLayout} that this GUI uses
+     */
+    public GuiLayout getLayout() {
+        return layout;
     }
 
     /**
@@ -1206,8 +2158,9 @@ public class InventoryGui implements Listener {
                         simulateCollectToCursor(click);
                         return click;
                     } else if (((InventoryClickEvent) event).getAction() == InventoryAction.MOVE_TO_OTHER_INVENTORY) {
-                        // This was an action we can't handle, abort
-                        event.setCancelled(true);
+                        GuiElement.Click click = new GuiElement.Click(this, slot, clickType, cursor, null, event);
+                        simulateMoveToGui(click);
+                        return click;
                     }
                 }
                 return null;
@@ -1215,12 +2168,19 @@ public class InventoryGui implements Listener {
             GuiElement.Click click = new GuiElement.Click(this, slot, clickType, cursor, element, event);
             if (action == null || action.onClick(click)) {
                 event.setCancelled(true);
+                // Only do a full update if the action asked for one or if it was a drag,
+                // otherwise just resend the clicked slot and the cursor
                 if (event.getWhoClicked() instanceof Player) {
-                    ((Player) event.getWhoClicked()).updateInventory();
+                    if (click.shouldUpdateInventory() || !(event instanceof InventoryClickEvent)) {
+                        ((Player) event.getWhoClicked()).updateInventory();
+                    } else {
+                        resyncClick(event.getWhoClicked(), slot);
+                    }
                 }
             }
             if (action != null) {
                 // Let's assume something changed and re-draw all currently shown inventories
+                invalidateRenderedPages(event.getWhoClicked());
                 for (UUID playerId : inventories.keySet()) {
                     if (!event.getWhoClicked().getUniqueId().equals(playerId)) {
                         Player player = plugin.getServer().getPlayer(playerId);
@@ -1249,16 +2209,11 @@ public class InventoryGui implements Listener {
 
         private UnregisterableListener() {
             List<UnregisterableListener> listeners = new ArrayList<>();
-            for (Class<?> innerClass : getClass().getDeclaredClasses()) {
-                if (UnregisterableListener.class.isAssignableFrom(innerClass)) {
-                    try {
-                        UnregisterableListener listener = ((Class<? extends UnregisterableListener>) innerClass).getDeclaredConstructor(getClass()).newInstance(this);
-                        if (!(listener instanceof OptionalListener) || ((OptionalListener) listener).isCompatible()) {
-                            listeners.add(listener);
-                        }
-                    } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                        e.printStackTrace();
-                    }
+            for (Constructor<? extends UnregisterableListener> constructor : LISTENER_CONSTRUCTORS.computeIfAbsent(getClass(), InventoryGui::findListenerConstructors)) {
+                try {
+                    listeners.add(constructor.newInstance(this));
+                } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+                    e.printStackTrace();
                 }
             }
             this.listeners = Collections.unmodifiableList(listeners);
@@ -1284,16 +2239,38 @@ public class InventoryGui implements Listener {
         }
     }
 
-    private abstract class OptionalListener extends UnregisterableListener {
-        private boolean isCompatible() {
-            try {
-                getClass().getMethods();
-                getClass().getDeclaredMethods();
-                return true;
-            } catch (NoClassDefFoundError e) {
-                return false;
+    /**
+     * A listener that only gets registered if all the classes it uses exist on the server
+     */
+    private abstract class OptionalListener extends UnregisterableListener {}
+
+    /**
+     * Look up the constructors of the inner listeners of a listener class. This only needs
+     * to be done once per class as it is the same for every GUI instance.
+     * @param listenerClass The class of the listener to get the inner listeners for
+     * @return The constructors of all compatible inner listeners
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Constructor<? extends UnregisterableListener>> findListenerConstructors(Class<?> listenerClass) {
+        List<Constructor<? extends UnregisterableListener>> constructors = new ArrayList<>();
+        for (Class<?> innerClass : listenerClass.getDeclaredClasses()) {
+            if (UnregisterableListener.class.isAssignableFrom(innerClass)) {
+                if (OptionalListener.class.isAssignableFrom(innerClass)) {
+                    try {
+                        innerClass.getMethods();
+                        innerClass.getDeclaredMethods();
+                    } catch (NoClassDefFoundError e) {
+                        continue;
+                    }
+                }
+                try {
+                    constructors.add(((Class<? extends UnregisterableListener>) innerClass).getDeclaredConstructor(listenerClass));
+                } catch (NoSuchMethodException e) {
+                    e.printStackTrace();
+                }
             }
         }
+        return Collections.unmodifiableList(constructors);
     }
 
     /**
@@ -1315,8 +2292,8 @@ public class InventoryGui implements Listener {
                 }
                 if (event.getRawSlot() < size) {
                     slot = event.getRawSlot();
-                } else if (event.getAction() == InventoryAction.MOVE_TO_OTHER_INVENTORY) {
-                    slot = event.getInventory().firstEmpty();
+                    // The click might change the slot's content
+                    markCollectIndex(event.getWhoClicked(), slot);
                 }
 
                 // Cache the original cursor
@@ -1340,6 +2317,9 @@ public class InventoryGui implements Listener {
         public void onInventoryDrag(InventoryDragEvent event) {
             Inventory inventory = getInventory(event.getWhoClicked());
             if (event.getInventory().equals(inventory)) {
+                for (int rawSlot : event.getRawSlots()) {
+                    markCollectIndex(event.getWhoClicked(), rawSlot);
+                }
                 // Check if we only drag over one slot if so then handle that as a click with the element
                 if (event.getRawSlots().size() == 1) {
                     int slot = event.getRawSlots().iterator().next();
@@ -1367,52 +2347,7 @@ public class InventoryGui implements Listener {
                     return;
                 }
 
-                int rest = 0;
-                Map<Integer, ItemStack> resetSlots = new HashMap<>();
-                for (Map.Entry<Integer, ItemStack> items : event.getNewItems().entrySet()) {
-                    if (items.getKey() < inventory.getSize()) {
-                        GuiElement element = getElement(items.getKey());
-                        if (!(element instanceof GuiStorageElement)
-                                || !((GuiStorageElement) element).setStorageItem(event.getWhoClicked(), items.getKey(), items.getValue())) {
-                            ItemStack slotItem = event.getInventory().getItem(items.getKey());
-                            if (!items.getValue().isSimilar(slotItem)) {
-                                rest += items.getValue().getAmount();
-                            } else if (slotItem != null) {
-                                rest += items.getValue().getAmount() - slotItem.getAmount();
-                            }
-                            //items.getValue().setAmount(0); // can't change resulting items :/
-                            resetSlots.put(items.getKey(), event.getInventory().getItem(items.getKey())); // reset them manually
-                        }
-                    }
-                }
-                
-                runTask(event.getWhoClicked(), () -> {
-                    for (Map.Entry<Integer, ItemStack> items : resetSlots.entrySet()) {
-                        GuiView.of(event.getView()).getTopInventory().setItem(items.getKey(), items.getValue());
-                    }
-                });
-                
-                if (rest > 0) {
-                    int cursorAmount = event.getCursor() != null ? event.getCursor().getAmount() : 0;
-                    if (!event.getOldCursor().isSimilar(event.getCursor())) {
-                        event.setCursor(event.getOldCursor());
-                        cursorAmount = 0;
-                    }
-                    int newCursorAmount = cursorAmount + rest;
-                    if (newCursorAmount <= event.getCursor().getMaxStackSize()) {
-                        event.getCursor().setAmount(newCursorAmount);
-                    } else {
-                        event.getCursor().setAmount(event.getCursor().getMaxStackSize());
-                        ItemStack add = event.getCursor().clone();
-                        int addAmount = newCursorAmount - event.getCursor().getMaxStackSize();
-                        if (addAmount > 0) {
-                            add.setAmount(addAmount);
-                            for (ItemStack drop : event.getWhoClicked().getInventory().addItem(add).values()) {
-                                event.getWhoClicked().getLocation().getWorld().dropItem(event.getWhoClicked().getLocation(), drop);
-                            }
-                        }
-                    }
-                }
+                distributeDrag(event, inventory);
             }
         }
 
@@ -1428,6 +2363,11 @@ public class InventoryGui implements Listener {
                         clearHistory(event.getPlayer());
                     }
                 }
+                for (GuiElement element : getElements()) {
+                    if (element instanceof GuiElementGroup) {
+                        ((GuiElementGroup) element).removeView(event.getPlayer());
+                    }
+                }
                 if (inventories.size() <= 1) {
                     destroy(false);
                 } else {
@@ -1437,13 +2377,9 @@ public class InventoryGui implements Listener {
                             viewer.closeInventory();
                         }
                     }
-                    inventories.remove(event.getPlayer().getUniqueId());
-                    pageAmounts.remove(event.getPlayer().getUniqueId());
-                    pageNumbers.remove(event.getPlayer().getUniqueId());
-                    for (GuiElement element : getElements()) {
-                        if (element instanceof DynamicGuiElement) {
-                            ((DynamicGuiElement) element).removeCachedElement(event.getPlayer());
-                        }
+                    removeViewer(event.getPlayer());
+                    if (inventoryPool != null) {
+                        inventoryPool.release(inventory);
                     }
                 }
             }
@@ -1481,6 +2417,7 @@ public class InventoryGui implements Listener {
         public void onPluginDisable(PluginDisableEvent event) {
             if (event.getPlugin() == plugin) {
                 destroy();
+                GuiAnimationClock.remove(plugin);
             }
         }
 
@@ -1508,9 +2445,19 @@ public class InventoryGui implements Listener {
      */
     public static class Holder implements InventoryHolder {
         private InventoryGui gui;
+        private final String title;
     
         public Holder(InventoryGui gui) {
+            this(gui, null);
+        }
+
+        /**
+         * @param gui   The gui that the inventory belongs to
+         * @param title The title that the inventory was created with, needed to reuse the inventory
+         */
+        public Holder(InventoryGui gui, String title) {
             this.gui = gui;
+            this.title = title;
         }
         
         @Override
@@ -1521,6 +2468,18 @@ public class InventoryGui implements Listener {
         public InventoryGui getGui() {
             return gui;
         }
+
+        void setGui(InventoryGui gui) {
+            this.gui = gui;
+        }
+
+        /**
+         * Get the title that the inventory was created with
+         * @return The title or <code>null</code> if it is unknown
+         */
+        public String getTitle() {
+            return title;
+        }
     }
 
     /**
@@ -1615,52 +2574,204 @@ public class InventoryGui implements Listener {
      * <code>%page%</code>      - The current page that this gui is on.<br>
      * <code>%nextpage%</code>  - The next page. "none" if there is no next page.<br>
      * <code>%prevpage%</code>  - The previous page. "none" if there is no previous page.<br>
-     * <code>%pages%</code>     - The amount of pages that this gui has.
+     * <code>%pages%</code>     - The amount of pages that this gui has.<br>
+     * Additionally all variables added with {@link #addVariable(String, Function)} and
+     * {@link #addGlobalVariable(String, BiFunction)} are available.
+     * Values are only computed for the placeholders that the text actually contains.
+     * Placeholders inside of the values, e.g. a title containing <code>%page%</code>, are replaced too
+     * up to a depth of {@value #MAX_VARIABLE_DEPTH} nested values.
      * @param player        The player viewing the GUI
      * @param text          The text to replace the placeholders in
      * @param replacements  Additional replacements. i = placeholder, i+1 = replacements
      * @return      The text with all placeholders replaced
      */
     public String replaceVars(@NotNull HumanEntity player, @NotNull String text, String... replacements) {
-        Map<String, String> map = new LinkedHashMap<>();
-        for (int i = 0; i + 1 < replacements.length; i += 2) {
-            map.putIfAbsent(replacements[i], replacements[i + 1]);
+        return ChatColor.translateAlternateColorCodes('&', expandVariables(player, text, 0, replacements));
+    }
+
+    /**
+     * Replace the placeholders in a text and in the values that were inserted
+     * @param player        The player viewing the GUI
+     * @param text          The text to replace the placeholders in
+     * @param depth         How many values deep the text is nested
+     * @param replacements  Additional replacements. i = placeholder, i+1 = replacements
+     * @return      The text with all placeholders replaced
+     */
+    private String expandVariables(HumanEntity player, String text, int depth, String... replacements) {
+        int start = text.indexOf('%');
+        if (start < 0) {
+            return text;
+        }
+        StringBuilder builder = new StringBuilder(text.length() + 16);
+        int position = 0;
+        while (start > -1) {
+            int end = text.indexOf('%', start + 1);
+            if (end < 0) {
+                break;
+            }
+            String value = end > start + 1 ? resolveVariable(player, text.substring(start + 1, end), replacements) : null;
+            if (value == null) {
+                // Not a known placeholder, the closing % might be the start of the next one
+                builder.append(text, position, end);
+                position = end;
+                start = end;
+                continue;
+            }
+            if (depth < MAX_VARIABLE_DEPTH && value.indexOf('%') > -1) {
+                value = expandVariables(player, value, depth + 1, replacements);
+            }
+            builder.append(text, position, start).append(value);
+            position = end + 1;
+            start = text.indexOf('%', position);
         }
+        builder.append(text, position, text.length());
+        return builder.toString();
+    }
 
-        map.putIfAbsent("plugin", plugin.getName());
-        try {
-            map.putIfAbsent("owner", owner instanceof Nameable ? ((Nameable) owner).getCustomName() : "");
-        } catch (NoSuchMethodError | NoClassDefFoundError e) {
-            map.putIfAbsent("owner", owner instanceof Entity ? ((Entity) owner).getCustomName() : "");
+    /**
+     * Get the value of a placeholder variable
+     * @param player        The player viewing the GUI
+     * @param name          The name of the variable without the percent signs
+     * @param replacements  Additional replacements. i = placeholder, i+1 = replacements
+     * @return The value or <code>null</code> if there is no variable with that name
+     */
+    private String resolveVariable(HumanEntity player, String name, String... replacements) {
+        for (int i = 0; i + 1 < replacements.length; i += 2) {
+            if (name.equals(replacements[i])) {
+                return replacements[i + 1] != null ? replacements[i + 1] : "null";
+            }
+        }
+        Function<HumanEntity, String> variable = variables.get(name);
+        if (variable != null) {
+            return String.valueOf(variable.apply(player));
+        }
+        BiFunction<InventoryGui, HumanEntity, String> globalVariable = GLOBAL_VARIABLES.get(name);
+        if (globalVariable != null) {
+            return String.valueOf(globalVariable.apply(this, player));
         }
-        map.putIfAbsent("title", title);
-        map.putIfAbsent("page", String.valueOf(getPageNumber(player) + 1));
-        map.putIfAbsent("nextpage", getPageNumber(player) + 1 < getPageAmount(player) ? String.valueOf(getPageNumber(player) + 2) : "none");
-        map.putIfAbsent("prevpage", getPageNumber(player) > 0 ? String.valueOf(getPageNumber(player)) : "none");
-        map.putIfAbsent("pages", String.valueOf(getPageAmount(player)));
+        switch (name) {
+            case "plugin":
+                return plugin.getName();
+            case "owner":
+                try {
+                    return owner instanceof Nameable ? String.valueOf(((Nameable) owner).getCustomName()) : "";
+                } catch (NoSuchMethodError | NoClassDefFoundError e) {
+                    return owner instanceof Entity ? String.valueOf(((Entity) owner).getCustomName()) : "";
+                }
+            case "title":
+                return String.valueOf(title);
+            case "page":
+                return String.valueOf(getPageNumber(player) + 1);
+            case "nextpage":
+                return getPageNumber(player) + 1 < getPageAmount(player) ? String.valueOf(getPageNumber(player) + 2) : "none";
+            case "prevpage":
+                return getPageNumber(player) > 0 ? String.valueOf(getPageNumber(player)) : "none";
+            case "pages":
+                return String.valueOf(getPageAmount(player));
+        }
+        return null;
+    }
 
-        return ChatColor.translateAlternateColorCodes('&', replace(text, map));
+    /**
+     * Add a placeholder variable to this gui that can be used in texts and the title.
+     * Its value is only computed when a text contains it.
+     * @param name      The name of the variable without the percent signs, e.g. <code>balance</code> for <code>%balance%</code>
+     * @param provider  The function that returns the value of the variable for the player viewing the gui
+     */
+    public void addVariable(String name, Function<HumanEntity, String> provider) {
+        variables.put(name, Objects.requireNonNull(provider));
     }
 
     /**
-     * Replace placeholders in a string
-     * @param string        The string to replace in
-     * @param replacements  What to replace the placeholders with. The n-th index is the placeholder, the n+1-th the value.
-     * @return The string with all placeholders replaced (using the configured placeholder prefix and suffix)
+     * Remove a placeholder variable from this gui
+     * @param name  The name of the variable without the percent signs
      */
-    private String replace(String string, Map<String, String> replacements) {
-        for (Map.Entry<String, String> entry : replacements.entrySet()) {
-            if (entry.getKey() == null) {
-                continue;
+    public void removeVariable(String name) {
+        variables.remove(name);
+    }
+
+    /**
+     * Add a placeholder variable that can be used in texts and titles of all guis.
+     * Variables of the gui itself take precedence. Its value is only computed when a text contains it.
+     * @param name      The name of the variable without the percent signs, e.g. <code>balance</code> for <code>%balance%</code>
+     * @param provider  The function that returns the value of the variable for the gui and the player viewing it
+     */
+    public static void addGlobalVariable(String name, BiFunction<InventoryGui, HumanEntity, String> provider) {
+        GLOBAL_VARIABLES.put(name, Objects.requireNonNull(provider));
+    }
+
+    /**
+     * Remove a placeholder variable from all guis
+     * @param name  The name of the variable without the percent signs
+     */
+    public static void removeGlobalVariable(String name) {
+        GLOBAL_VARIABLES.remove(name);
+    }
+
+    /**
+     * Add an element to the index of a tag
+     * @param tag       The tag
+     * @param element   The element that has the tag
+     */
+    static void indexTag(String tag, GuiElement element) {
+        // Add inside of compute so that the set can't be removed concurrently by unindexTag
+        TAGGED_ELEMENTS.compute(tag, (t, elements) -> {
+            if (elements == null) {
+                elements = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
             }
-            String placeholder = "%" + entry.getKey() + "%";
-            Pattern pattern = PATTERN_CACHE.get(placeholder);
-            if (pattern == null) {
-                PATTERN_CACHE.put(placeholder, pattern = Pattern.compile(placeholder, Pattern.LITERAL));
+            elements.add(element);
+            return elements;
+        });
+    }
+
+    /**
+     * Remove an element from the index of a tag
+     * @param tag       The tag
+     * @param element   The element that doesn't have the tag anymore
+     */
+    static void unindexTag(String tag, GuiElement element) {
+        TAGGED_ELEMENTS.computeIfPresent(tag, (t, elements) -> {
+            elements.remove(element);
+            return elements.isEmpty() ? null : elements;
+        });
+    }
+
+    /**
+     * Get all live elements that have a certain tag
+     * @param tag   The tag
+     * @return      A copy of the elements with that tag
+     */
+    public static List<GuiElement> getTaggedElements(String tag) {
+        Set<GuiElement> elements = TAGGED_ELEMENTS.get(tag);
+        if (elements == null) {
+            return Collections.emptyList();
+        }
+        synchronized (elements) {
+            return new ArrayList<>(elements);
+        }
+    }
+
+    /**
+     * Draw only the slots of all elements with a certain tag for the current viewers of their guis.
+     * Dynamic elements with the tag get updated. Guis without viewers are skipped.
+     * @param tag   The tag of the elements to draw, e.g. <code>item:diamond</code>
+     */
+    public static void updateTag(String tag) {
+        Map<InventoryGui, List<GuiElement>> guis = new IdentityHashMap<>();
+        for (GuiElement element : getTaggedElements(tag)) {
+            InventoryGui gui = element.getGui();
+            if (gui != null && gui.hasViewers()) {
+                guis.computeIfAbsent(gui, g -> new ArrayList<>()).add(element);
             }
-            string = pattern.matcher(string).replaceAll(Matcher.quoteReplacement(entry.getValue() != null ? entry.getValue() : "null"));
         }
-        return string;
+        if (guis.isEmpty()) {
+            // Drop the set if all its elements were garbage collected
+            TAGGED_ELEMENTS.computeIfPresent(tag, (t, elements) -> elements.isEmpty() ? null : elements);
+            return;
+        }
+        for (Map.Entry<InventoryGui, List<GuiElement>> entry : guis.entrySet()) {
+            entry.getKey().drawElements(entry.getValue(), true);
+        }
     }
     
     /**
@@ -1681,13 +2792,18 @@ public class InventoryGui implements Listener {
         ItemStack newCursor = click.getCursor().clone();
 
         final Inventory topInventory = GuiView.of(click.getRawEvent().getView()).getTopInventory();
+        Map<GuiStorageElement, GuiStorageElement.Batch> batches = new LinkedHashMap<>();
+        BitSet changedSlots = new BitSet(topInventory.getSize());
         boolean itemInGui = false;
-        for (int i = 0; i < topInventory.getSize(); i++) {
+        // Only the slots that contain an item of the same type can contain similar items
+        BitSet candidates = getCollectIndex(click.getWhoClicked(), topInventory).getSlots(newCursor.getType());
+        for (int i = candidates.nextSetBit(0); i >= 0 && i < topInventory.getSize(); i = candidates.nextSetBit(i + 1)) {
             if (i != event.getRawSlot()) {
                 ItemStack viewItem = topInventory.getItem(i);
-                if (newCursor.isSimilar(viewItem)) {
-                    itemInGui = true;
+                if (!newCursor.isSimilar(viewItem)) {
+                    continue;
                 }
+                itemInGui = true;
                 GuiElement element = getEffectiveElement(click.getWhoClicked(), i);
                 if (element instanceof GuiStorageElement) {
                     GuiStorageElement storageElement = (GuiStorageElement) element;
@@ -1697,7 +2813,10 @@ public class InventoryGui implements Listener {
                             if (resultSize == 0) {
                                 viewItem = null;
                             }
-                            storageElement.setStorageItem(click.getWhoClicked(), i, viewItem);
+                            if (batches.computeIfAbsent(storageElement, GuiStorageElement::startBatch)
+                                    .setStorageItem(click.getWhoClicked(), i, viewItem)) {
+                                changedSlots.set(i);
+                            }
                             if (newCursor.getAmount() == newCursor.getMaxStackSize()) {
                                 break;
                             }
@@ -1706,6 +2825,9 @@ public class InventoryGui implements Listener {
                 }
             }
         }
+        for (GuiStorageElement.Batch batch : batches.values()) {
+            batch.commit();
+        }
     
         if (itemInGui) {
             event.setCurrentItem(null);
@@ -1718,6 +2840,10 @@ public class InventoryGui implements Listener {
                 Inventory bottomInventory = GuiView.of(event.getView()).getBottomInventory();
                 for (int i = 0; i < bottomInventory.getContents().length; i++) {
                     ItemStack bottomItem = bottomInventory.getItem(i);
+                    if (bottomItem == null || bottomItem.getType() != newCursor.getType()) {
+                        // Quick check before the more expensive similarity check
+                        continue;
+                    }
                     int resultSize = addToStack(newCursor, bottomItem);
                     if (resultSize > -1) {
                         if (resultSize == 0) {
@@ -1730,10 +2856,171 @@ public class InventoryGui implements Listener {
                 }
             }
             event.setCursor(newCursor);
-            draw(false);
+            drawSlots(click.getWhoClicked(), changedSlots.stream().toArray());
+            drawStorageForOthers(click.getWhoClicked(), batches.keySet());
         }
     }
     
+    /**
+     * Simulate moving an item from the player's inventory into the gui by shift-clicking it.
+     * Like vanilla it first merges the item with similar stacks and then fills empty slots,
+     * but only slots of storage elements whose validators accept the item are used.
+     * @param click The click that started it all
+     */
+    void simulateMoveToGui(GuiElement.Click click) {
+        if (!(click.getRawEvent() instanceof InventoryClickEvent)) {
+            // Only a click event can trigger moving to the other inventory
+            return;
+        }
+        InventoryClickEvent event = (InventoryClickEvent) click.getRawEvent();
+        // We move the items ourselves
+        event.setCancelled(true);
+        ItemStack current = event.getCurrentItem();
+        if (current == null || current.getType().isAir()) {
+            return;
+        }
+
+        HumanEntity who = click.getWhoClicked();
+        ItemStack moving = current.clone();
+        Inventory topInventory = GuiView.of(event.getView()).getTopInventory();
+        Map<GuiStorageElement, GuiStorageElement.Batch> batches = new LinkedHashMap<>();
+        int[] changedSlots = new int[topInventory.getSize()];
+        int changedAmount = 0;
+
+        // Merge with similar stacks first
+        for (int i = 0; i < topInventory.getSize() && moving.getAmount() > 0; i++) {
+            GuiElement element = getEffectiveElement(who, i);
+            if (element instanceof GuiStorageElement) {
+                ItemStack slotItem = topInventory.getItem(i);
+                if (slotItem != null && slotItem.getAmount() < slotItem.getMaxStackSize() && moving.isSimilar(slotItem)) {
+                    int added = Math.min(slotItem.getMaxStackSize() - slotItem.getAmount(), moving.getAmount());
+                    ItemStack newItem = slotItem.clone();
+                    newItem.setAmount(slotItem.getAmount() + added);
+                    if (batches.computeIfAbsent((GuiStorageElement) element, GuiStorageElement::startBatch).setStorageItem(who, i, newItem)) {
+                        moving.setAmount(moving.getAmount() - added);
+                        changedSlots[changedAmount++] = i;
+                    }
+                }
+            }
+        }
+        // Then put the rest into empty slots
+        for (int i = 0; i < topInventory.getSize() && moving.getAmount() > 0; i++) {
+            GuiElement element = getEffectiveElement(who, i);
+            if (element instanceof GuiStorageElement) {
+                ItemStack slotItem = topInventory.getItem(i);
+                if (slotItem == null || slotItem.getType().isAir()) {
+                    int added = Math.min(moving.getMaxStackSize(), moving.getAmount());
+                    ItemStack newItem = moving.clone();
+                    newItem.setAmount(added);
+                    if (batches.computeIfAbsent((GuiStorageElement) element, GuiStorageElement::startBatch).setStorageItem(who, i, newItem)) {
+                        moving.setAmount(moving.getAmount() - added);
+                        changedSlots[changedAmount++] = i;
+                    }
+                }
+            }
+        }
+        if (changedAmount == 0) {
+            return;
+        }
+
+        for (GuiStorageElement.Batch batch : batches.values()) {
+            batch.commit();
+        }
+        event.setCurrentItem(moving.getAmount() > 0 ? moving : null);
+        drawSlots(who, Arrays.copyOf(changedSlots, changedAmount));
+        drawStorageForOthers(who, batches.keySet());
+    }
+
+    /**
+     * Draw the slots of storage elements for all viewers except one, e.g. after that one changed their contents
+     * @param who       The player that shouldn't get the slots drawn
+     * @param elements  The storage elements to draw
+     */
+    private void drawStorageForOthers(HumanEntity who, Collection<GuiStorageElement> elements) {
+        if (elements.isEmpty()) {
+            return;
+        }
+        for (UUID playerId : inventories.keySet()) {
+            if (!who.getUniqueId().equals(playerId)) {
+                Player player = plugin.getServer().getPlayer(playerId);
+                if (player != null) {
+                    runTaskOrNow(player, () -> {
+                        for (GuiStorageElement element : elements) {
+                            drawSlots(player, element.getSlots());
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the index of which slots of a player's inventory contain which item types. Slots that changed since
+     * the index was last used are refreshed first.
+     * @param who       The player
+     * @param inventory The inventory of the player
+     * @return          The up to date index
+     */
+    private CollectIndex getCollectIndex(HumanEntity who, Inventory inventory) {
+        CollectIndex index = collectIndices.computeIfAbsent(who.getUniqueId(), id -> new CollectIndex(inventory.getSize()));
+        index.refresh(inventory);
+        return index;
+    }
+
+    /**
+     * Mark slots of a player's inventory as changed in the collect index
+     * @param who   The player
+     * @param slots The slots that changed
+     */
+    private void markCollectIndex(HumanEntity who, int... slots) {
+        CollectIndex index = collectIndices.get(who.getUniqueId());
+        if (index != null) {
+            for (int slot : slots) {
+                index.markChanged(slot);
+            }
+        }
+    }
+
+    /**
+     * An index of which slots contain which item types, used to only check slots that can contain similar items
+     */
+    private static class CollectIndex {
+        private final Material[] types;
+        private final Map<Material, BitSet> slots = new HashMap<>();
+        private final BitSet changed;
+
+        private CollectIndex(int size) {
+            types = new Material[size];
+            changed = new BitSet(size);
+            changed.set(0, size);
+        }
+
+        private void markChanged(int slot) {
+            if (slot >= 0 && slot < types.length) {
+                changed.set(slot);
+            }
+        }
+
+        private void refresh(Inventory inventory) {
+            for (int slot = changed.nextSetBit(0); slot >= 0 && slot < types.length; slot = changed.nextSetBit(slot + 1)) {
+                if (types[slot] != null) {
+                    slots.get(types[slot]).clear(slot);
+                }
+                ItemStack item = slot < inventory.getSize() ? inventory.getItem(slot) : null;
+                types[slot] = item != null ? item.getType() : null;
+                if (types[slot] != null) {
+                    slots.computeIfAbsent(types[slot], t -> new BitSet(types.length)).set(slot);
+                }
+            }
+            changed.clear();
+        }
+
+        private BitSet getSlots(Material type) {
+            BitSet typeSlots = slots.get(type);
+            return typeSlots != null ? (BitSet) typeSlots.clone() : new BitSet();
+        }
+    }
+
     /**
      * Add items to a stack up to the max stack size
      * @param item  The base item
@@ -90,6 +90,9 @@ public class StaticGuiElement extends GuiElement {
      */
     public void setItem(ItemStack item) {
         this.item = item;
+        if (gui != null) {
+            gui.invalidateRenderedPages();
+        }
     }
 
     /**
@@ -114,6 +117,15 @@ public class StaticGuiElement extends GuiElement {
         return clone;
     }
 
+    /**
+     * Static elements show the same item in every slot. Subclasses might not so they need to opt in by overriding this.
+     * @return <code>true</code> if this is a plain {@link StaticGuiElement}
+     */
+    @Override
+    public boolean isSlotInvariant() {
+        return getClass() == StaticGuiElement.class;
+    }
+
     /**
      * Set this element's display text. If this is an empty array the item's name will be displayed
      * @param text  The text to display on this element, placeholders are automatically
@@ -124,6 +136,9 @@ public class StaticGuiElement extends GuiElement {
      */
     public void setText(String... text) {
         this.text = text;
+        if (gui != null) {
+            gui.invalidateRenderedPages();
+        }
     }
 
     /**
@@ -140,12 +155,12 @@ public class StaticGuiElement extends GuiElement {
      * @return          <code>true</code> if the number was set; <code>false</code> if it was below 1 or above 64
      */
     public boolean setNumber(int number) {
-        if (number < 1 || number > 64) {
-            this.number = 1;
-            return false;
+        boolean valid = number >= 1 && number <= 64;
+        this.number = valid ? number : 1;
+        if (gui != null) {
+            gui.invalidateRenderedPages();
         }
-        this.number = number;
-        return true;
+        return valid;
     }
 
     /**
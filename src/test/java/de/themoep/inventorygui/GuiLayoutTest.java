@@ -0,0 +1,79 @@
+package de.themoep.inventorygui;
+
+/*
+ * Copyright 2017 Max Lee (https://github.com/Phoenix616)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.bukkit.event.inventory.InventoryType;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class GuiLayoutTest {
+
+    @Test
+    public void chestRows() {
+        GuiLayout layout = new GuiLayout(
+                "aaaaaaaaa",
+                "abbbbbbba",
+                "aaaaaaaaa"
+        );
+        assertEquals(InventoryType.CHEST, layout.getInventoryType());
+        assertEquals(9, layout.getWidth());
+        assertEquals(27, layout.getSize());
+        assertEquals('b', layout.getSlotChar(10));
+        assertArrayEquals(new int[] {10, 11, 12, 13, 14, 15, 16}, layout.getSlots('b'));
+        assertEquals(20, layout.getSlots('a').length);
+    }
+
+    @Test
+    public void smallestMatchingInventoryType() {
+        assertEquals(InventoryType.DISPENSER, new GuiLayout("abc", "def", "ghi").getInventoryType());
+        assertEquals(InventoryType.HOPPER, new GuiLayout("abcd").getInventoryType());
+        assertEquals(InventoryType.CHEST, new GuiLayout("abcdef").getInventoryType());
+    }
+
+    @Test
+    public void shortRowsAreCentered() {
+        GuiLayout layout = new GuiLayout(
+                "aaaaaaaaa",
+                "b",
+                "cc"
+        );
+        assertArrayEquals(new int[] {13}, layout.getSlots('b'));
+        // The odd space goes to the right side
+        assertArrayEquals(new int[] {21, 22}, layout.getSlots('c'));
+        assertEquals(' ', layout.getSlotChar(9));
+        assertEquals(' ', layout.getSlotChar(26));
+        assertEquals(15, layout.getSlots(' ').length);
+    }
+
+    @Test
+    public void unusedCharacterHasNoSlots() {
+        assertEquals(0, new GuiLayout("abc").getSlots('z').length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooWideRows() {
+        new GuiLayout("aaaaaaaaaa");
+    }
+}
@@ -0,0 +1,122 @@
+package de.themoep.inventorygui;
+
+/*
+ * Copyright 2017 Max Lee (https://github.com/Phoenix616)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class GuiSearchIndexTest {
+
+    private final GuiElement diamondSword = text("Diamond Sword", "Sharp");
+    private final GuiElement ironSword = text("Iron Sword");
+    private final GuiElement diamondPickaxe = text("Diamond Pickaxe", "Mines fast");
+    private GuiElementGroup group;
+
+    @Before
+    public void setUp() {
+        group = new GuiElementGroup('g', diamondSword, ironSword, diamondPickaxe);
+        group.setSearchable(true);
+    }
+
+    @Test
+    public void allTermsHaveToMatch() {
+        assertEquals(Arrays.asList(diamondSword, diamondPickaxe), group.search("diamond"));
+        assertEquals(Arrays.asList(diamondSword), group.search("SWORD  diamond"));
+        assertEquals(Arrays.asList(diamondPickaxe), group.search("fast"));
+        assertEquals(0, group.search("diamond axe iron").size());
+        assertEquals(0, group.search("emerald").size());
+    }
+
+    @Test
+    public void termsAreMatchedInsideOfWords() {
+        assertEquals(Arrays.asList(diamondPickaxe), group.search("ckax"));
+        // Terms shorter than a trigram can't use the index
+        assertEquals(Arrays.asList(ironSword), group.search("ir"));
+    }
+
+    @Test
+    public void indexMatchesScan() {
+        String[] queries = {"diamond", "sword iron", "mond", "d s", "harp", "e", "xyz"};
+        List<List<GuiElement>> indexed = new ArrayList<>();
+        for (String query : queries) {
+            indexed.add(group.search(query));
+        }
+        group.setSearchable(false);
+        for (int i = 0; i < queries.length; i++) {
+            assertEquals(queries[i], indexed.get(i), group.search(queries[i]));
+        }
+    }
+
+    @Test
+    public void addedAndReplacedElementsAreIndexed() {
+        GuiElement diamondAxe = text("Diamond Axe");
+        group.addElement(diamondAxe);
+        assertEquals(Arrays.asList(diamondSword, diamondPickaxe, diamondAxe), group.search("diamond"));
+
+        GuiElement goldSword = text("Gold Sword");
+        group.setElements(ironSword, goldSword);
+        assertEquals(Arrays.asList(ironSword, goldSword), group.search("sword"));
+        assertEquals(0, group.search("diamond").size());
+    }
+
+    @Test
+    public void elementsWithoutTextNeverMatch() {
+        group.addElement(new GuiElementGroup('h'));
+        group.addElement(new StaticGuiElement('i', null));
+        assertEquals(Arrays.asList(ironSword), group.search("iron"));
+        group.setSearchable(false);
+        assertEquals(Arrays.asList(ironSword), group.search("iron"));
+    }
+
+    @Test
+    public void indexOfOtherSnapshotIsNotUsed() {
+        List<GuiElement> elements = Arrays.asList(diamondSword, ironSword);
+        GuiSearchIndex index = new GuiSearchIndex(elements);
+        assertArrayEquals(new int[] {1}, index.search(elements, "iron"));
+        assertNull(index.search(new ArrayList<>(elements), "iron"));
+    }
+
+    @Test
+    public void searchView() {
+        UUID uuid = UUID.randomUUID();
+        group.setSearch(TestObjects.player(uuid), "pickaxe");
+        assertEquals(1, group.size(TestObjects.player(uuid)));
+        assertEquals(3, group.size(TestObjects.player(UUID.randomUUID())));
+
+        group.setSearch(TestObjects.player(uuid), " ");
+        assertEquals(3, group.size(TestObjects.player(uuid)));
+    }
+
+    private static GuiElement text(String... text) {
+        return new StaticGuiElement('i', null, text);
+    }
+}
@@ -0,0 +1,160 @@
+package de.themoep.inventorygui;
+
+/*
+ * Copyright 2017 Max Lee (https://github.com/Phoenix616)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.bukkit.Material;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.inventory.ItemStack;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GuiStorageElementTest {
+
+    private final HumanEntity player = TestObjects.player(UUID.randomUUID());
+    private final AtomicInteger applied = new AtomicInteger();
+    private final List<GuiStorageElement.Journal> journals = new ArrayList<>();
+    private ItemStack[] contents;
+    private GuiStorageElement element;
+
+    @BeforeClass
+    public static void installServer() {
+        TestObjects.installServer();
+    }
+
+    @Before
+    public void setUp() {
+        contents = new ItemStack[] {new ItemStack(Material.STONE, 1), null, null};
+        element = new GuiStorageElement('s', TestObjects.inventory(contents));
+        element.setApplyStorage(applied::incrementAndGet);
+        element.setApplyChanges(journals::add);
+        new InventoryGui(TestObjects.plugin(), "Storage", new String[] {"sss"}, element);
+    }
+
+    @Test
+    public void writesOnlyReachStorageOnCommit() {
+        GuiStorageElement.Batch batch = element.startBatch();
+        assertTrue(batch.setStorageItem(player, 1, new ItemStack(Material.DIRT, 2)));
+        assertTrue(batch.setStorageItem(player, 2, new ItemStack(Material.STONE, 3)));
+        assertNull(contents[1]);
+        assertEquals(0, applied.get());
+
+        GuiStorageElement.Journal journal = batch.commit();
+        assertEquals(new ItemStack(Material.DIRT, 2), contents[1]);
+        assertEquals(new ItemStack(Material.STONE, 3), contents[2]);
+        assertEquals(1, applied.get());
+        assertArrayEquals(new int[] {1, 2}, journal.getChangedSlots());
+        assertEquals(1, journals.size());
+        assertSame(journal, journals.get(0));
+        assertTrue(batch.isEmpty());
+    }
+
+    @Test
+    public void unchangedWritesAreLeftOutOfTheJournal() {
+        GuiStorageElement.Batch batch = element.startBatch();
+        batch.setStorageItem(player, 0, new ItemStack(Material.STONE, 1));
+        batch.setStorageItem(player, 1, null);
+        GuiStorageElement.Journal journal = batch.commit();
+
+        assertTrue(journal.isEmpty());
+        assertTrue(journals.isEmpty());
+        // The storage is still applied as the batch contained writes
+        assertEquals(1, applied.get());
+    }
+
+    @Test
+    public void clearedSlotsAreJournaledAsEmpty() {
+        GuiStorageElement.Batch batch = element.startBatch();
+        batch.setStorageItem(player, 0, null);
+        GuiStorageElement.Journal journal = batch.commit();
+
+        assertTrue(journal.isChanged(0));
+        assertNull(journal.getItem(0));
+        assertNull(contents[0]);
+    }
+
+    @Test
+    public void modifiedLiveItemsAreJournaled() {
+        GuiStorageElement.Batch batch = element.startBatch();
+        ItemStack item = element.getStorageItem(player, 0);
+        item.setAmount(5);
+        batch.setStorageItem(player, 0, item);
+        GuiStorageElement.Journal journal = batch.commit();
+
+        assertArrayEquals(new int[] {0}, journal.getChangedSlots());
+        assertEquals(5, journal.getItem(0).getAmount());
+    }
+
+    @Test
+    public void reusedBatchComparesAgainstLastCommit() {
+        GuiStorageElement.Batch batch = element.startBatch();
+        batch.setStorageItem(player, 1, new ItemStack(Material.DIRT, 2));
+        batch.commit();
+
+        batch.setStorageItem(player, 1, new ItemStack(Material.DIRT, 2));
+        assertTrue(batch.commit().isEmpty());
+    }
+
+    @Test
+    public void discardDropsWrites() {
+        GuiStorageElement.Batch batch = element.startBatch();
+        batch.setStorageItem(player, 1, new ItemStack(Material.DIRT, 2));
+        batch.discard();
+
+        assertTrue(batch.isEmpty());
+        assertTrue(batch.commit().isEmpty());
+        assertNull(contents[1]);
+        assertEquals(0, applied.get());
+    }
+
+    @Test
+    public void rejectedWritesAreNotQueued() {
+        element.setPlaceValidator(info -> info.getItem() == null || info.getItem().getType() != Material.DIRT);
+        GuiStorageElement.Batch batch = element.startBatch();
+
+        assertFalse(batch.setStorageItem(player, 1, new ItemStack(Material.DIRT, 1)));
+        assertFalse(batch.setStorageItem(player, 3, new ItemStack(Material.STONE, 1)));
+        assertTrue(batch.isEmpty());
+    }
+
+    @Test
+    public void singleWritesCommitImmediately() {
+        assertTrue(element.setStorageItem(player, 2, new ItemStack(Material.DIRT, 4)));
+
+        assertEquals(new ItemStack(Material.DIRT, 4), contents[2]);
+        assertEquals(1, applied.get());
+        assertArrayEquals(new int[] {2}, journals.get(0).getChangedSlots());
+    }
+}
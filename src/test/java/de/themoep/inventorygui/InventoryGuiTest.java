@@ -0,0 +1,129 @@
+package de.themoep.inventorygui;
+
+/*
+ * Copyright 2017 Max Lee (https://github.com/Phoenix616)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.bukkit.Material;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.inventory.ItemStack;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class InventoryGuiTest {
+
+    @BeforeClass
+    public static void installServer() {
+        TestObjects.installServer();
+    }
+
+    @Test
+    public void rejectedDragAmount() {
+        // Dragged into an empty slot
+        assertEquals(3, InventoryGui.getRejectedAmount(new ItemStack(Material.STONE, 3), null));
+        // Dragged onto a stack of the same item, only the added items are rejected
+        assertEquals(2, InventoryGui.getRejectedAmount(new ItemStack(Material.STONE, 5), new ItemStack(Material.STONE, 3)));
+        // The drag replaced another item
+        assertEquals(4, InventoryGui.getRejectedAmount(new ItemStack(Material.STONE, 4), new ItemStack(Material.DIRT, 1)));
+    }
+
+    @Test
+    public void dragCursorGetsRejectedItemsBack() {
+        ItemStack oldCursor = new ItemStack(Material.STONE, 10);
+        assertEquals(7, InventoryGui.getDragCursorAmount(oldCursor, new ItemStack(Material.STONE, 4), 3));
+        // All items were dragged out of the cursor
+        assertEquals(6, InventoryGui.getDragCursorAmount(oldCursor, null, 6));
+    }
+
+    @Test
+    public void dragCursorNeverExceedsOldCursor() {
+        ItemStack oldCursor = new ItemStack(Material.STONE, 64);
+        assertEquals(64, InventoryGui.getDragCursorAmount(oldCursor, new ItemStack(Material.STONE, 60), 10));
+        assertEquals(64, InventoryGui.getDragCursorAmount(oldCursor, null, 100));
+        // A different item in the resulting cursor doesn't count as remaining
+        assertEquals(5, InventoryGui.getDragCursorAmount(new ItemStack(Material.STONE, 8), new ItemStack(Material.DIRT, 8), 5));
+    }
+
+    @Test
+    public void builtInPlaceholders() {
+        InventoryGui gui = new InventoryGui(TestObjects.plugin(), "Shop", new String[] {"aaa"});
+        HumanEntity player = TestObjects.player(UUID.randomUUID());
+        assertEquals("TestPlugin: Shop 1/1 none", gui.replaceVars(player, "%plugin%: %title% %page%/%pages% %nextpage%"));
+        assertEquals("[]", gui.replaceVars(player, "[%owner%]"));
+    }
+
+    @Test
+    public void unknownPlaceholdersAreKept() {
+        InventoryGui gui = new InventoryGui(TestObjects.plugin(), "Shop", new String[] {"aaa"});
+        HumanEntity player = TestObjects.player(UUID.randomUUID());
+        assertEquals("100% %unknown% done", gui.replaceVars(player, "100% %unknown% done"));
+        // The closing percent sign of an unknown placeholder can open the next one
+        assertEquals("50% Shop", gui.replaceVars(player, "50% %title%"));
+        assertEquals("%%", gui.replaceVars(player, "%%"));
+        assertEquals("trailing %", gui.replaceVars(player, "trailing %"));
+    }
+
+    @Test
+    public void replacementsAndVariables() {
+        InventoryGui gui = new InventoryGui(TestObjects.plugin(), "Shop", new String[] {"aaa"});
+        HumanEntity player = TestObjects.player(UUID.randomUUID());
+        gui.addVariable("balance", p -> "42");
+        assertEquals("x-null 42", gui.replaceVars(player, "%a%-%b% %balance%", "a", "x", "b", null));
+        // Replacements take precedence over variables
+        assertEquals("0", gui.replaceVars(player, "%balance%", "balance", "0"));
+    }
+
+    @Test
+    public void variablesAreOnlyComputedWhenUsed() {
+        InventoryGui gui = new InventoryGui(TestObjects.plugin(), "Shop", new String[] {"aaa"});
+        HumanEntity player = TestObjects.player(UUID.randomUUID());
+        AtomicInteger computed = new AtomicInteger();
+        gui.addVariable("expensive", p -> String.valueOf(computed.incrementAndGet()));
+        gui.replaceVars(player, "%title% %page%");
+        assertEquals(0, computed.get());
+        assertEquals("1", gui.replaceVars(player, "%expensive%"));
+    }
+
+    @Test
+    public void placeholdersInsideOfValues() {
+        InventoryGui gui = new InventoryGui(TestObjects.plugin(), "Shop %page%", new String[] {"aaa"});
+        HumanEntity player = TestObjects.player(UUID.randomUUID());
+        gui.addVariable("header", p -> "%title% (%balance%)");
+        gui.addVariable("balance", p -> "42");
+        assertEquals("Shop 1 (42)", gui.replaceVars(player, "%header%"));
+        assertEquals("Shop 1", gui.replaceVars(player, "%a%", "a", "%title%"));
+    }
+
+    @Test
+    public void nestedPlaceholdersAreLimited() {
+        InventoryGui gui = new InventoryGui(TestObjects.plugin(), "Shop", new String[] {"aaa"});
+        HumanEntity player = TestObjects.player(UUID.randomUUID());
+        gui.addVariable("loop", p -> "%loop%");
+        assertEquals("%loop%", gui.replaceVars(player, "%loop%"));
+        gui.addVariable("grow", p -> "a%grow%");
+        assertEquals("aaaaa%grow%", gui.replaceVars(player, "%grow%"));
+    }
+}
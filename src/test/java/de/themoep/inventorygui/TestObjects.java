@@ -0,0 +1,176 @@
+package de.themoep.inventorygui;
+
+/*
+ * Copyright 2017 Max Lee (https://github.com/Phoenix616)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.UnsafeValues;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.logging.Logger;
+
+/**
+ * Minimal implementations of the server interfaces that the pure logic of the guis touches.
+ * Methods which aren't answered explicitly return <code>null</code>, an empty string or zero.
+ */
+final class TestObjects {
+
+    private TestObjects() {}
+
+    /**
+     * Install a server that reports a data version which supports {@link GuiStorageElement}s
+     * and whose items never have any meta
+     */
+    static synchronized void installServer() {
+        if (Bukkit.getServer() != null) {
+            return;
+        }
+        UnsafeValues unsafe = proxy(UnsafeValues.class, (method, args) ->
+                method.getName().equals("getDataVersion") ? 4554 : null);
+        ItemFactory itemFactory = proxy(ItemFactory.class, (method, args) ->
+                method.getName().equals("equals") ? Objects.equals(args[0], args[1]) : null);
+        Bukkit.setServer(proxy(Server.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getUnsafe":
+                    return unsafe;
+                case "getItemFactory":
+                    return itemFactory;
+                case "getLogger":
+                    return Logger.getLogger("TestServer");
+                case "isPrimaryThread":
+                    return true;
+            }
+            return null;
+        }));
+    }
+
+    static Plugin plugin() {
+        return proxy(Plugin.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getName":
+                    return "TestPlugin";
+                case "getLogger":
+                    return Logger.getLogger("TestPlugin");
+                case "isEnabled":
+                    return true;
+            }
+            return null;
+        });
+    }
+
+    static HumanEntity player(UUID uuid) {
+        return proxy(HumanEntity.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getUniqueId":
+                    return uuid;
+                case "getName":
+                    return "Player";
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Create an inventory that is backed directly by an array, like a real inventory its items are returned live
+     * @param contents  The contents of the inventory
+     * @return          The inventory
+     */
+    static Inventory inventory(ItemStack... contents) {
+        return proxy(Inventory.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getSize":
+                    return contents.length;
+                case "getItem":
+                    return contents[(int) args[0]];
+                case "setItem":
+                    contents[(int) args[0]] = (ItemStack) args[1];
+                    return null;
+                case "getContents":
+                case "getStorageContents":
+                    return contents.clone();
+            }
+            return null;
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, BiFunction<Method, Object[], Object> answer) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    if (method.getParameterCount() == 1) {
+                        return proxy == args[0];
+                    }
+                    break;
+                case "hashCode":
+                    if (method.getParameterCount() == 0) {
+                        return System.identityHashCode(proxy);
+                    }
+                    break;
+                case "toString":
+                    if (method.getParameterCount() == 0) {
+                        return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+                    }
+                    break;
+            }
+            Object value = answer.apply(method, args);
+            if (value != null) {
+                return value;
+            }
+            Class<?> returnType = method.getReturnType();
+            if (returnType == String.class) {
+                return "";
+            } else if (returnType == boolean.class) {
+                return false;
+            } else if (returnType == char.class) {
+                return '\0';
+            } else if (returnType.isPrimitive() && returnType != void.class) {
+                return castZero(returnType);
+            }
+            return null;
+        }));
+    }
+
+    private static Object castZero(Class<?> type) {
+        if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == double.class) {
+            return 0D;
+        } else if (type == float.class) {
+            return 0F;
+        } else if (type == short.class) {
+            return (short) 0;
+        }
+        return (byte) 0;
+    }
+}